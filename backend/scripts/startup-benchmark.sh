@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+#
+# Startup and first-request latency benchmark.
+#
+# Build first with:  mvn -Pfast-start package
+# Then run:          ./scripts/startup-benchmark.sh [runs]
+#
+# Each run starts the app against an in-memory database, measures the time until
+# /api/test answers and the latency of the first /api/decks request, and appends one
+# row per run to target/startup-benchmark.csv so results can be tracked across commits.
+#
+#   baseline  - thin jar, reflection-based startup, no class data sharing
+#   fast      - prod,fast-start profiles with Spring AOT and the AppCDS archive
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+JAR="target/flashcard-app-0.0.1-SNAPSHOT.jar"
+CSV="target/startup-benchmark.csv"
+COMMIT="$(git rev-parse --short HEAD 2>/dev/null || echo unknown)"
+
+if [[ ! -f "$JAR" || ! -d target/lib || ! -f target/app.jsa ]]; then
+  echo "Missing fast-start artifacts; run: mvn -Pfast-start package" >&2
+  exit 1
+fi
+
+APP_ARGS=(
+  "--server.port=$PORT"
+  "--spring.datasource.url=jdbc:h2:mem:benchmark"
+  "--spring.datasource.username=sa"
+  "--spring.datasource.password="
+  "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+)
+
+now_ms() {
+  date +%s%3N
+}
+
+run_once() {
+  local mode="$1" run="$2"
+  local jvm_args=()
+  local profiles="prod"
+
+  if [[ "$mode" == "fast" ]]; then
+    jvm_args=("-XX:SharedArchiveFile=target/app.jsa" "-Dspring.aot.enabled=true")
+    profiles="prod,fast-start"
+  fi
+
+  local start
+  start="$(now_ms)"
+  java "${jvm_args[@]}" -jar "$JAR" "--spring.profiles.active=$profiles" "${APP_ARGS[@]}" \
+    > "target/startup-benchmark-$mode.log" 2>&1 &
+  local pid=$!
+
+  until curl -sf -o /dev/null "http://localhost:$PORT/api/test"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$mode run $run: application exited, see target/startup-benchmark-$mode.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  local startup_ms=$(( $(now_ms) - start ))
+
+  local first_request_s
+  first_request_s="$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/api/decks")"
+  local first_request_ms
+  first_request_ms="$(awk -v s="$first_request_s" 'BEGIN { printf "%.1f", s * 1000 }')"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+
+  echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$COMMIT,$mode,$run,$startup_ms,$first_request_ms" >> "$CSV"
+  printf '%-8s run %d: startup %6d ms, first request %8s ms\n' "$mode" "$run" "$startup_ms" "$first_request_ms"
+}
+
+if [[ ! -f "$CSV" ]]; then
+  echo "timestamp,commit,mode,run,startup_ms,first_request_ms" > "$CSV"
+fi
+
+for mode in baseline fast; do
+  for run in $(seq 1 "$RUNS"); do
+    run_once "$mode" "$run"
+  done
+done
+
+echo
+echo "Median over $RUNS runs (commit $COMMIT):"
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+for mode in baseline fast; do
+  rows="$(grep ",$COMMIT,$mode," "$CSV" | tail -n "$RUNS")"
+  startup="$(cut -d, -f5 <<< "$rows" | median)"
+  first="$(cut -d, -f6 <<< "$rows" | median)"
+  printf '  %-8s startup %s ms, first request %s ms\n' "$mode" "$startup" "$first"
+done
@@ -39,6 +39,10 @@ public class SecurityConfig {
                 .requestMatchers(mvcMatcherBuilder.pattern("/h2-console/**")).permitAll()
                 .requestMatchers(mvcMatcherBuilder.pattern("/api/test/**")).permitAll()
                 .requestMatchers(mvcMatcherBuilder.pattern("/api/decks/**")).permitAll()
+                .requestMatchers(mvcMatcherBuilder.pattern("/api/flashcards/bodies/**")).permitAll()
+                .requestMatchers(mvcMatcherBuilder.pattern("/api/quiz/**")).permitAll()
+                .requestMatchers(mvcMatcherBuilder.pattern("/api/media/**")).permitAll()
+                .requestMatchers(mvcMatcherBuilder.pattern("/api/admin/**")).hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()))
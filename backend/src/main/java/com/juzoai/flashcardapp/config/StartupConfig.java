@@ -0,0 +1,26 @@
+package com.juzoai.flashcardapp.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StartupConfig {
+
+    // With lazy initialization on, still open the pool and validate the schema during startup
+    // so a bad database fails the deploy instead of the first request
+    @Bean
+    static LazyInitializationExcludeFilter eagerPersistence() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class);
+    }
+
+    // Controllers and everything they depend on are needed by the first request anyway
+    @Bean
+    static LazyInitializationExcludeFilter eagerControllers() {
+        return (beanName, beanDefinition, beanType) -> beanType.isAnnotationPresent(RestController.class);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.juzoai.flashcardapp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.service.SingleFlight;
+
+// Operator view of read coalescing on this instance; requires an authenticated caller
+@RestController
+@RequestMapping("/api/admin/coalescing")
+public class CoalescingAdminController {
+    private final SingleFlight singleFlight;
+
+    public CoalescingAdminController(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(singleFlight.getStats());
+    }
+}
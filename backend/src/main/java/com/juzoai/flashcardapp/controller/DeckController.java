@@ -1,10 +1,13 @@
 package com.juzoai.flashcardapp.controller;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -15,19 +18,41 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.juzoai.flashcardapp.model.Deck;
 import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+import com.juzoai.flashcardapp.service.DuplicateService;
+import com.juzoai.flashcardapp.service.PurgeService;
+import com.juzoai.flashcardapp.service.ResilientReads;
+import com.juzoai.flashcardapp.service.SuggestService;
+import com.juzoai.flashcardapp.service.SuggestionTrie;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
 
 @RestController
 @RequestMapping("/api/decks")
 @CrossOrigin(origins = "http://localhost:3000")
 public class DeckController {
     private final DeckRepository deckRepository;
+    private final DeckCloneService deckCloneService;
+    private final ShardRouter shardRouter;
+    private final PurgeService purgeService;
+    private final ResilientReads resilientReads;
+    private final DuplicateService duplicateService;
+    private final SuggestService suggestService;
 
-    public DeckController(DeckRepository deckRepository) {
+    public DeckController(DeckRepository deckRepository, DeckCloneService deckCloneService, ShardRouter shardRouter,
+                          PurgeService purgeService, ResilientReads resilientReads, DuplicateService duplicateService,
+                          SuggestService suggestService) {
         this.deckRepository = deckRepository;
+        this.deckCloneService = deckCloneService;
+        this.shardRouter = shardRouter;
+        this.purgeService = purgeService;
+        this.resilientReads = resilientReads;
+        this.duplicateService = duplicateService;
+        this.suggestService = suggestService;
     }
     
     // Simple DTO to avoid lazy loading issues
@@ -36,29 +61,57 @@ public class DeckController {
         private String title;
         private String description;
         private int cardCount;
+        private Long sourceDeckId;
         
         public DeckDTO(Deck deck) {
             this.id = deck.getId();
             this.title = deck.getTitle();
             this.description = deck.getDescription();
             this.cardCount = deck.getCardCount();
+            this.sourceDeckId = deck.getSourceDeckId();
         }
 
         public Long getId() { return id; }
         public String getTitle() { return title; }
         public String getDescription() { return description; }
         public int getCardCount() { return cardCount; }
+        public Long getSourceDeckId() { return sourceDeckId; }
+    }
+
+    public static class SuggestionDTO {
+        private String type;
+        private Long id;
+        private Long deckId;
+        private String text;
+        private int popularity;
+
+        public SuggestionDTO(SuggestionTrie.Suggestion suggestion) {
+            this.type = suggestion.type().name().toLowerCase();
+            this.id = suggestion.id();
+            this.deckId = suggestion.deckId();
+            this.text = suggestion.text();
+            this.popularity = suggestion.popularity();
+        }
+
+        public String getType() { return type; }
+        public Long getId() { return id; }
+        public Long getDeckId() { return deckId; }
+        public String getText() { return text; }
+        public int getPopularity() { return popularity; }
     }
     
+    // Reads answer from the last known result, marked stale, while the database is slow or down
     @GetMapping
     public ResponseEntity<?> getAllDecks() {
         try {
-            List<Deck> decks = deckRepository.findAll();
-            // Convert to DTOs to avoid lazy loading issues
-            List<DeckDTO> deckDTOs = decks.stream()
-                    .map(DeckDTO::new)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(deckDTOs);
+            // Convert to DTOs to avoid lazy loading issues; with sharding every shard is queried in parallel
+            ResilientReads.Read<List<DeckDTO>> read = resilientReads.read("decks",
+                    () -> List.copyOf(shardRouter.fanOut(() -> deckRepository.findAll().stream()
+                            .map(DeckDTO::new)
+                            .collect(Collectors.toList()))));
+            return ResponseEntity.ok().headers(read.headers()).body(read.value());
+        } catch (ResilientReads.UnavailableException e) {
+            return unavailable(e);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -66,16 +119,30 @@ public class DeckController {
         }
     }
     
+    // Deck titles and card fronts with a word starting with q, from the user's decks and the
+    // public ones, most cloned first; answered from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam String q,
+                                                       @RequestParam(required = false) Long userId,
+                                                       @RequestParam(required = false) Integer limit) {
+        int max = limit != null ? limit : suggestService.getTopK();
+        return ResponseEntity.ok(suggestService.suggest(q, userId, max).stream()
+                .map(SuggestionDTO::new)
+                .toList());
+    }
+
+    // Concurrent requests for the same deck share one load
     @GetMapping("/{id}")
     public ResponseEntity<?> getDeckById(@PathVariable Long id) {
         try {
-            return deckRepository.findById(id)
-                    .<ResponseEntity<?>>map(deck -> {
-                        DeckDTO deckDTO = new DeckDTO(deck);
-                        return ResponseEntity.ok().body(deckDTO);
-                    })
+            ResilientReads.Read<Optional<DeckDTO>> read = resilientReads.read("deck:" + id,
+                    () -> shardRouter.forDeck(id, () -> deckRepository.findById(id).map(DeckDTO::new)));
+            return read.value()
+                    .<ResponseEntity<?>>map(deckDTO -> ResponseEntity.ok().headers(read.headers()).body(deckDTO))
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                             .body(Map.of("message", "Deck not found with id: " + id)));
+        } catch (ResilientReads.UnavailableException e) {
+            return unavailable(e);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -83,14 +150,17 @@ public class DeckController {
         }
     }
 
+    // The user's clones live with their source decks, which may be on any shard
     @GetMapping("/user/{userId}")
     public ResponseEntity<?> getDecksByUser(@PathVariable Long userId) {
         try {
-            List<Deck> decks = deckRepository.findByUserId(userId);
-            List<DeckDTO> deckDTOs = decks.stream()
-                    .map(DeckDTO::new)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(deckDTOs);
+            ResilientReads.Read<List<DeckDTO>> read = resilientReads.read("user-decks:" + userId,
+                    () -> List.copyOf(shardRouter.fanOut(() -> deckRepository.findByUserId(userId).stream()
+                            .map(DeckDTO::new)
+                            .toList())));
+            return ResponseEntity.ok().headers(read.headers()).body(read.value());
+        } catch (ResilientReads.UnavailableException e) {
+            return unavailable(e);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -117,7 +187,12 @@ public class DeckController {
                 deck.setCardCount(0);
             }
             
-            Deck savedDeck = deckRepository.save(deck);
+            Long userId = deck.getUser() != null ? deck.getUser().getId() : null;
+            Deck savedDeck = shardRouter.forUser(userId, () -> {
+                shardRouter.replicateUser(userId);
+                return deckRepository.save(deck);
+            });
+            suggestService.deckSaved(savedDeck);
             System.out.println("Deck saved successfully with ID: " + savedDeck.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(new DeckDTO(savedDeck));
             
@@ -145,16 +220,40 @@ public class DeckController {
         }
     }
 
+    @PostMapping("/{id}/clone")
+    public ResponseEntity<?> cloneDeck(@PathVariable Long id, @RequestParam(required = false) Long userId) {
+        try {
+            // The clone lives with its source deck so merged reads stay on one shard
+            return shardRouter.forDeck(id, () -> {
+                        shardRouter.replicateUser(userId);
+                        return deckCloneService.cloneDeck(id, userId).map(clone -> {
+                            suggestService.deckSaved(clone);
+                            return new DeckDTO(clone);
+                        });
+                    })
+                    .<ResponseEntity<?>>map(clone -> ResponseEntity.status(HttpStatus.CREATED).body(clone))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "Deck not found with id: " + id)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Error cloning deck: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateDeck(@PathVariable Long id, @RequestBody Deck deck) {
         try {
-            return deckRepository.findById(id)
-                    .<ResponseEntity<?>>map(existingDeck -> {
+            Optional<DeckDTO> updated = shardRouter.forDeck(id, () -> deckRepository.findById(id)
+                    .map(existingDeck -> {
                         existingDeck.setTitle(deck.getTitle());
                         existingDeck.setDescription(deck.getDescription());
-                        Deck updated = deckRepository.save(existingDeck);
-                        return ResponseEntity.ok().body(new DeckDTO(updated));
-                    })
+                        Deck saved = deckRepository.save(existingDeck);
+                        suggestService.deckSaved(saved);
+                        return new DeckDTO(saved);
+                    }));
+            return updated
+                    .<ResponseEntity<?>>map(deckDTO -> ResponseEntity.ok().body(deckDTO))
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                             .body(Map.of("message", "Deck not found with id: " + id)));
         } catch (Exception e) {
@@ -164,20 +263,53 @@ public class DeckController {
         }
     }
 
+    // The deck is hidden at once; its cards are removed in the background and the job reports progress
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteDeck(@PathVariable Long id) {
         try {
-            if (!deckRepository.existsById(id)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("message", "Deck not found with id: " + id));
-            }
-            
-            deckRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
+            return purgeService.deleteDeck(id)
+                    .<ResponseEntity<?>>map(job -> {
+                        suggestService.deckRemoved(id);
+                        return ResponseEntity.accepted()
+                                .location(URI.create("/api/decks/" + id + "/purge"))
+                                .body(job);
+                    })
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "Deck not found with id: " + id)));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("message", "Error deleting deck: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/{id}/purge")
+    public ResponseEntity<?> getDeckPurge(@PathVariable Long id) {
+        return purgeService.findDeckJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "No deletion in progress for deck: " + id)));
+    }
+
+    // Removes near-duplicate cards from the deck's view, keeping the oldest of each group;
+    // dryRun=true only reports the groups
+    @PostMapping("/{id}/dedupe")
+    public ResponseEntity<?> dedupeDeck(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            return duplicateService.dedupeDeck(id, dryRun)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "Deck not found with id: " + id)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Error removing duplicate cards: " + e.getMessage()));
+        }
+    }
+
+    static ResponseEntity<?> unavailable(ResilientReads.UnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(Map.of("message", "Decks are temporarily unavailable, please try again shortly"));
+    }
+}
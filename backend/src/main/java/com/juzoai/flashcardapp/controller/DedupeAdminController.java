@@ -0,0 +1,44 @@
+package com.juzoai.flashcardapp.controller;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.model.DedupeJob;
+import com.juzoai.flashcardapp.service.DedupeJobService;
+
+// Operator batch job removing near-duplicate cards from every deck; requires the admin role
+@RestController
+@RequestMapping("/api/admin/dedupe")
+public class DedupeAdminController {
+    private final DedupeJobService dedupeJobService;
+
+    public DedupeAdminController(DedupeJobService dedupeJobService) {
+        this.dedupeJobService = dedupeJobService;
+    }
+
+    // Defaults to a dry run that only counts what would be removed; the job runs in the background
+    @PostMapping
+    public ResponseEntity<DedupeJob> dedupeAll(@RequestParam(defaultValue = "true") boolean dryRun) {
+        DedupeJob job = dedupeJobService.start(dryRun);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/dedupe/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id) {
+        return dedupeJobService.findJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Dedupe job not found with id: " + id)));
+    }
+}
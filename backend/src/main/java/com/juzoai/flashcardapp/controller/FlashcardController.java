@@ -1,10 +1,16 @@
 package com.juzoai.flashcardapp.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,12 +19,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.juzoai.flashcardapp.model.Deck;
 import com.juzoai.flashcardapp.model.Flashcard;
 import com.juzoai.flashcardapp.repository.DeckRepository;
 import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.service.CardBodyService;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+import com.juzoai.flashcardapp.service.DuplicateService;
+import com.juzoai.flashcardapp.service.ResilientReads;
+import com.juzoai.flashcardapp.service.SuggestService;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
 
 @RestController
 @RequestMapping("/api")
@@ -26,62 +40,194 @@ import com.juzoai.flashcardapp.repository.FlashcardRepository;
 public class FlashcardController {
     private final FlashcardRepository flashcardRepository;
     private final DeckRepository deckRepository;
+    private final DeckCloneService deckCloneService;
+    private final CardBodyService cardBodyService;
+    private final ShardRouter shardRouter;
+    private final ResilientReads resilientReads;
+    private final DuplicateService duplicateService;
+    private final SuggestService suggestService;
 
-    public FlashcardController(FlashcardRepository flashcardRepository, DeckRepository deckRepository) {
+    public FlashcardController(FlashcardRepository flashcardRepository, DeckRepository deckRepository,
+                               DeckCloneService deckCloneService, CardBodyService cardBodyService,
+                               ShardRouter shardRouter, ResilientReads resilientReads,
+                               DuplicateService duplicateService, SuggestService suggestService) {
         this.flashcardRepository = flashcardRepository;
         this.deckRepository = deckRepository;
+        this.deckCloneService = deckCloneService;
+        this.cardBodyService = cardBodyService;
+        this.shardRouter = shardRouter;
+        this.resilientReads = resilientReads;
+        this.duplicateService = duplicateService;
+        this.suggestService = suggestService;
+    }
+
+    // Simple DTO to avoid lazy loading issues; large sides carry a preview and the hash of the full text
+    public static class FlashcardDTO {
+        private Long id;
+        private Long deckId;
+        private String front;
+        private String back;
+        private String frontHash;
+        private String backHash;
+        private Long sourceCardId;
+        private List<Long> possibleDuplicates = List.of();
+
+        public FlashcardDTO(Flashcard flashcard) {
+            this(flashcard, flashcard.getFront(), flashcard.getBack());
+        }
+
+        public FlashcardDTO(Flashcard flashcard, String front, String back) {
+            this.id = flashcard.getId();
+            this.deckId = flashcard.getDeck().getId();
+            this.front = front;
+            this.back = back;
+            this.frontHash = flashcard.getFrontHash();
+            this.backHash = flashcard.getBackHash();
+            this.sourceCardId = flashcard.getSourceCardId();
+        }
+
+        public Long getId() { return id; }
+        public Long getDeckId() { return deckId; }
+        public String getFront() { return front; }
+        public String getBack() { return back; }
+        public String getFrontHash() { return frontHash; }
+        public String getBackHash() { return backHash; }
+        public Long getSourceCardId() { return sourceCardId; }
+
+        // Set on writes: the owner's other cards that this card likely duplicates
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        public List<Long> getPossibleDuplicates() { return possibleDuplicates; }
+
+        public FlashcardDTO withPossibleDuplicates(List<Long> possibleDuplicates) {
+            this.possibleDuplicates = possibleDuplicates;
+            return this;
+        }
+    }
+
+    public static class ImportResponse {
+        private List<FlashcardDTO> imported;
+        private List<DuplicateService.SkippedCard> skipped;
+
+        public ImportResponse(DuplicateService.ImportResult result) {
+            this.imported = result.imported().stream()
+                    .map(card -> new FlashcardDTO(card.card()).withPossibleDuplicates(card.possibleDuplicates()))
+                    .toList();
+            this.skipped = result.skipped();
+        }
+
+        public List<FlashcardDTO> getImported() { return imported; }
+        public List<DuplicateService.SkippedCard> getSkipped() { return skipped; }
     }
 
     @GetMapping("/decks/{deckId}/flashcards")
-    public ResponseEntity<List<Flashcard>> getFlashcardsByDeck(@PathVariable Long deckId) {
-        if (!deckRepository.existsById(deckId)) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> getFlashcardsByDeck(@PathVariable Long deckId) {
+        // Clones resolve to the merged view of their source deck and their own edits. Concurrent
+        // requests for the same deck share one load, so the list must not be modified. While the
+        // database is slow or down the last known list is served, marked stale.
+        ResilientReads.Read<Optional<List<FlashcardDTO>>> read;
+        try {
+            read = resilientReads.read("deck-cards:" + deckId, () -> shardRouter.forDeck(deckId,
+                    () -> deckRepository.findById(deckId)
+                            .map(deck -> deckCloneService.findCards(deck).stream()
+                                    .map(FlashcardDTO::new)
+                                    .toList())));
+        } catch (ResilientReads.UnavailableException e) {
+            return DeckController.unavailable(e);
         }
-        return ResponseEntity.ok(flashcardRepository.findByDeckId(deckId));
+        return read.value()
+                .<ResponseEntity<?>>map(cards -> ResponseEntity.ok().headers(read.headers()).body(cards))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/flashcards/{id}")
-    public ResponseEntity<Flashcard> getFlashcardById(@PathVariable Long id) {
-        return flashcardRepository.findById(id)
+    @Transactional(readOnly = true)
+    public ResponseEntity<FlashcardDTO> getFlashcardById(@PathVariable Long id) {
+        return shardRouter.findCard(id, () -> flashcardRepository.findVisibleById(id)
+                .map(card -> new FlashcardDTO(card, cardBodyService.fullFront(card), cardBodyService.fullBack(card))))
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Bodies are content-addressed, so clients and proxies may cache them forever
+    @GetMapping("/flashcards/bodies/{hash}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<String> getFlashcardBody(@PathVariable String hash) {
+        return cardBodyService.findBody(hash)
+                .map(body -> ResponseEntity.ok()
+                        .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                        .eTag(hash)
+                        .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                        .body(body))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/decks/{deckId}/flashcards")
-    public ResponseEntity<Flashcard> createFlashcard(@PathVariable Long deckId, @RequestBody Flashcard flashcard) {
-        Optional<Deck> deckOpt = deckRepository.findById(deckId);
-        if (deckOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<FlashcardDTO> createFlashcard(@PathVariable Long deckId, @RequestBody Flashcard flashcard) {
+        return shardRouter.forDeck(deckId, () -> {
+            Optional<Deck> deckOpt = deckRepository.findById(deckId);
+            if (deckOpt.isEmpty()) {
+                return Optional.<FlashcardDTO>empty();
+            }
+
+            flashcard.setId(null);
+            flashcard.setSourceCardId(null);
+            flashcard.setDeleted(false);
+            flashcard.setDeck(deckOpt.get());
+            cardBodyService.externalize(flashcard);
+            duplicateService.sign(flashcard);
+            List<Long> duplicates = duplicateService.findDuplicates(deckOpt.get(), flashcard);
+            Flashcard savedFlashcard = flashcardRepository.save(flashcard);
+            duplicateService.indexAfterCommit(deckOpt.get(), savedFlashcard);
+            suggestService.cardSaved(savedFlashcard);
+
+            // Update card count on the deck
+            Deck deck = deckOpt.get();
+            int cardCount = deckCloneService.countCards(deck);
+            deck.setCardCount(cardCount);
+            deckRepository.save(deck);
+
+            return Optional.of(new FlashcardDTO(savedFlashcard).withPossibleDuplicates(duplicates));
+        })
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Bulk import; near-duplicates of cards already in the deck, or earlier in the import, are
+    // skipped unless skipDuplicates=false, and duplicates in the owner's other decks are flagged
+    @PostMapping("/decks/{deckId}/flashcards/import")
+    public ResponseEntity<?> importFlashcards(@PathVariable Long deckId, @RequestBody List<Flashcard> flashcards,
+                                              @RequestParam(defaultValue = "true") boolean skipDuplicates) {
+        if (flashcards.size() > duplicateService.getMaxImport()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("message", "At most " + duplicateService.getMaxImport() + " cards can be imported at once"));
         }
-        
-        flashcard.setDeck(deckOpt.get());
-        Flashcard savedFlashcard = flashcardRepository.save(flashcard);
-        
-        // Update card count on the deck
-        Deck deck = deckOpt.get();
-        int cardCount = flashcardRepository.countByDeckId(deckId);
-        deck.setCardCount(cardCount);
-        deckRepository.save(deck);
-        
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedFlashcard);
+        return shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId)
+                .map(deck -> duplicateService.importCards(deck, flashcards, skipDuplicates)))
+                .<ResponseEntity<?>>map(result -> {
+                    result.imported().forEach(card -> suggestService.cardSaved(card.card()));
+                    return ResponseEntity.status(HttpStatus.CREATED).body(new ImportResponse(result));
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/decks/{deckId}/flashcards/{id}")
-    public ResponseEntity<Flashcard> updateFlashcard(
+    public ResponseEntity<FlashcardDTO> updateFlashcard(
             @PathVariable Long deckId,
             @PathVariable Long id,
             @RequestBody Flashcard flashcard) {
         
-        if (!deckRepository.existsById(deckId)) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        return flashcardRepository.findById(id)
-                .map(existingFlashcard -> {
-                    existingFlashcard.setFront(flashcard.getFront());
-                    existingFlashcard.setBack(flashcard.getBack());
-                    return ResponseEntity.ok(flashcardRepository.save(existingFlashcard));
-                })
+        // Editing an inherited card in a cloned deck materializes an overlay row
+        return shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId)
+                .flatMap(deck -> {
+                    cardBodyService.externalize(flashcard);
+                    duplicateService.sign(flashcard);
+                    return deckCloneService.updateCard(deck, id, flashcard).map(saved -> {
+                        duplicateService.indexAfterCommit(deck, saved);
+                        suggestService.cardSaved(saved);
+                        return new FlashcardDTO(saved).withPossibleDuplicates(duplicateService.findDuplicates(deck, saved));
+                    });
+                }))
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -90,19 +236,21 @@ public class FlashcardController {
             @PathVariable Long deckId,
             @PathVariable Long id) {
         
-        Optional<Deck> deckOpt = deckRepository.findById(deckId);
-        if (deckOpt.isEmpty() || !flashcardRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        flashcardRepository.deleteById(id);
-        
-        // Update card count on the deck
-        Deck deck = deckOpt.get();
-        int cardCount = flashcardRepository.countByDeckId(deckId);
-        deck.setCardCount(cardCount);
-        deckRepository.save(deck);
-        
-        return ResponseEntity.noContent().build();
+        boolean deleted = shardRouter.forDeck(deckId, () -> {
+            Optional<Deck> deckOpt = deckRepository.findById(deckId);
+            if (deckOpt.isEmpty() || !deckCloneService.deleteCard(deckOpt.get(), id)) {
+                return false;
+            }
+            duplicateService.removeAfterCommit(deckOpt.get(), id);
+            suggestService.cardRemoved(deckId, id);
+
+            // Update card count on the deck
+            Deck deck = deckOpt.get();
+            int cardCount = deckCloneService.countCards(deck);
+            deck.setCardCount(cardCount);
+            deckRepository.save(deck);
+            return true;
+        });
+        return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 } 
\ No newline at end of file
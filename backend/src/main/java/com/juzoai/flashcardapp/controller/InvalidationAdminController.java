@@ -0,0 +1,24 @@
+package com.juzoai.flashcardapp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.invalidation.InvalidationBus;
+
+// Operator view of this instance's invalidation traffic; requires an authenticated caller
+@RestController
+@RequestMapping("/api/admin/invalidation")
+public class InvalidationAdminController {
+    private final InvalidationBus invalidationBus;
+
+    public InvalidationAdminController(InvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(invalidationBus.getStats());
+    }
+}
@@ -0,0 +1,274 @@
+package com.juzoai.flashcardapp.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.model.CardAttachment;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.CardAttachmentRepository;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+import com.juzoai.flashcardapp.service.MediaStore;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "http://localhost:3000")
+public class MediaController {
+
+    // Set by Tomcat when the connector can hand a file region to the kernel (sendfile)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Media types accepted for upload, with the extension used in their URLs. SVG is left out
+    // because it can carry scripts.
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "video/mp4", "mp4",
+            "video/webm", "webm");
+    private static final Map<String, String> CONTENT_TYPES = EXTENSIONS.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+
+    private final MediaStore mediaStore;
+    private final CardAttachmentRepository cardAttachmentRepository;
+    private final DeckRepository deckRepository;
+    private final DeckCloneService deckCloneService;
+    private final ShardRouter shardRouter;
+
+    public MediaController(MediaStore mediaStore, CardAttachmentRepository cardAttachmentRepository,
+                           DeckRepository deckRepository, DeckCloneService deckCloneService,
+                           ShardRouter shardRouter) {
+        this.mediaStore = mediaStore;
+        this.cardAttachmentRepository = cardAttachmentRepository;
+        this.deckRepository = deckRepository;
+        this.deckCloneService = deckCloneService;
+        this.shardRouter = shardRouter;
+    }
+
+    public static class AttachmentDTO {
+        private Long id;
+        private Long flashcardId;
+        private String contentType;
+        private String fileName;
+        private long size;
+        private String url;
+
+        public AttachmentDTO(CardAttachment attachment) {
+            this.id = attachment.getId();
+            this.flashcardId = attachment.getFlashcardId();
+            this.contentType = attachment.getContentType();
+            this.fileName = attachment.getFileName();
+            this.size = attachment.getSize();
+            this.url = "/api/media/" + attachment.getHash() + "." + EXTENSIONS.get(attachment.getContentType());
+        }
+
+        public Long getId() { return id; }
+        public Long getFlashcardId() { return flashcardId; }
+        public String getContentType() { return contentType; }
+        public String getFileName() { return fileName; }
+        public long getSize() { return size; }
+        public String getUrl() { return url; }
+    }
+
+    // Attachments of every card shown in the deck, so a study session needs a single request
+    @GetMapping("/decks/{deckId}/attachments")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<AttachmentDTO>> getDeckAttachments(@PathVariable Long deckId) {
+        return shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId)
+                .map(deck -> deckCloneService.findCards(deck).stream().map(Flashcard::getId).toList())
+                .map(cardIds -> cardAttachmentRepository.findByFlashcardIdIn(cardIds).stream()
+                        .map(AttachmentDTO::new)
+                        .collect(Collectors.toList())))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // The file is the raw request body, streamed to disk as it arrives
+    @PostMapping("/decks/{deckId}/flashcards/{cardId}/attachments")
+    public ResponseEntity<?> uploadAttachment(@PathVariable Long deckId, @PathVariable Long cardId,
+                                              @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                              @RequestParam(required = false) String fileName,
+                                              HttpServletRequest request) throws IOException {
+        String mediaType = contentType.split(";")[0].trim().toLowerCase();
+        if (!EXTENSIONS.containsKey(mediaType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .body(Map.of("message", "Unsupported media type: " + mediaType));
+        }
+        if (request.getContentLengthLong() > mediaStore.getMaxBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("message", "Media files can be at most " + mediaStore.getMaxBytes() + " bytes"));
+        }
+
+        // Uploads for unknown decks or cards are refused before the body is read, so they cannot fill the disk
+        if (shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId)
+                .flatMap(deck -> deckCloneService.ownCard(deck, cardId))).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        MediaStore.StoredBlob blob;
+        try {
+            blob = mediaStore.store(request.getInputStream());
+        } catch (MediaStore.BlobTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("message", e.getMessage()));
+        }
+
+        // A file stored for a card deleted during the upload is removed by the garbage collector
+        String name = fileName != null && fileName.length() > 255 ? fileName.substring(0, 255) : fileName;
+        return shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId)
+                .flatMap(deck -> deckCloneService.ownCard(deck, cardId))
+                .map(card -> cardAttachmentRepository.save(
+                        new CardAttachment(card.getId(), blob.hash(), mediaType, name, blob.size()))))
+                .<ResponseEntity<?>>map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(new AttachmentDTO(saved)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Removing an attachment of an inherited card gives the clone its own copy of the card without it
+    @DeleteMapping("/decks/{deckId}/flashcards/{cardId}/attachments/{id}")
+    public ResponseEntity<Void> deleteAttachment(@PathVariable Long deckId, @PathVariable Long cardId,
+                                                 @PathVariable Long id) {
+        boolean deleted = shardRouter.forDeck(deckId, () -> {
+            Optional<CardAttachment> attachment = cardAttachmentRepository.findByIdAndFlashcardId(id, cardId);
+            Optional<Flashcard> owned = attachment.flatMap(a -> deckRepository.findById(deckId))
+                    .flatMap(deck -> deckCloneService.ownCard(deck, cardId));
+            if (owned.isEmpty()) {
+                return false;
+            }
+            if (owned.get().getId().equals(cardId)) {
+                cardAttachmentRepository.delete(attachment.get());
+                return true;
+            }
+            // The overlay was just given copies of the inherited card's attachments
+            CardAttachment original = attachment.get();
+            cardAttachmentRepository.findByFlashcardIdOrderByIdAsc(owned.get().getId()).stream()
+                    .filter(copy -> copy.getHash().equals(original.getHash()))
+                    .findFirst()
+                    .ifPresent(cardAttachmentRepository::delete);
+            return true;
+        });
+        return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    // Files are content-addressed and immutable, so they are cached forever and never touch the
+    // database. The bytes go from the page cache to the socket via sendfile when Tomcat supports
+    // it. Otherwise they are copied to the response through a small heap buffer, so a file is
+    // never held in memory whole.
+    @GetMapping("/media/{hash}.{extension}")
+    public void getMedia(@PathVariable String hash, @PathVariable String extension,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentType = CONTENT_TYPES.get(extension);
+        Optional<Path> file = contentType == null ? Optional.empty() : mediaStore.find(hash);
+        if (file.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String etag = "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setContentType(contentType);
+
+        long length = Files.size(file.get());
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // A single range is served as 206; several ranges are rare for media and get the whole file
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    // HttpRange clamps the end but not the start to the file
+                    if (start >= length) {
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        send(request, response, file.get(), start, end - start + 1);
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file, long start, long count)
+            throws IOException {
+        response.setContentLengthLong(count);
+        if (count <= 0 || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the region itself after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        // The servlet stream is not a file descriptor, so transferTo falls back to copying through a heap buffer
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
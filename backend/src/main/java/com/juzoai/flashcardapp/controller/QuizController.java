@@ -0,0 +1,93 @@
+package com.juzoai.flashcardapp.controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.service.QuizService;
+
+// Signed-in users are tracked by account; anonymous clients send a random session id header
+@RestController
+@RequestMapping("/api/quiz")
+@CrossOrigin(origins = "http://localhost:3000")
+public class QuizController {
+    private static final String SESSION_HEADER = "X-Quiz-Session";
+
+    private final QuizService quizService;
+
+    public QuizController(QuizService quizService) {
+        this.quizService = quizService;
+    }
+
+    public static class AnswerRequest {
+        private int questionId;
+        private int selectedAnswer;
+
+        public int getQuestionId() { return questionId; }
+        public void setQuestionId(int questionId) { this.questionId = questionId; }
+        public int getSelectedAnswer() { return selectedAnswer; }
+        public void setSelectedAnswer(int selectedAnswer) { this.selectedAnswer = selectedAnswer; }
+    }
+
+    @GetMapping("/topics")
+    public ResponseEntity<?> getTopics(Principal principal,
+                                       @RequestHeader(value = SESSION_HEADER, required = false) String session) {
+        return ResponseEntity.ok(quizService.topics(username(principal), session));
+    }
+
+    @GetMapping("/questions/next")
+    public ResponseEntity<?> getNextQuestion(Principal principal,
+                                             @RequestHeader(value = SESSION_HEADER, required = false) String session,
+                                             @RequestParam(required = false) String topic) {
+        return quizService.nextQuestion(username(principal), session, topic)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Unknown quiz topic: " + topic)));
+    }
+
+    @PostMapping("/answers")
+    public ResponseEntity<?> answer(Principal principal,
+                                    @RequestHeader(value = SESSION_HEADER, required = false) String session,
+                                    @RequestBody AnswerRequest request) {
+        return quizService.answer(username(principal), session, request.getQuestionId(), request.getSelectedAnswer())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Unknown quiz question: " + request.getQuestionId())));
+    }
+
+    @GetMapping("/problems")
+    public ResponseEntity<?> getProblems() {
+        return ResponseEntity.ok(quizService.problems());
+    }
+
+    @GetMapping("/problems/spin")
+    public ResponseEntity<?> spinProblem(Principal principal,
+                                         @RequestHeader(value = SESSION_HEADER, required = false) String session,
+                                         @RequestParam(required = false) String difficulty,
+                                         @RequestParam(required = false) String category,
+                                         @RequestParam(defaultValue = "false") boolean blind75Only) {
+        return quizService.spinProblem(username(principal), session, all(difficulty), all(category), blind75Only)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "No problems match the selected filters")));
+    }
+
+    private static String username(Principal principal) {
+        return principal != null ? principal.getName() : null;
+    }
+
+    // The frontend filters use "All" for no filter
+    private static String all(String filter) {
+        return filter == null || filter.isBlank() || filter.equals("All") ? null : filter;
+    }
+}
@@ -0,0 +1,24 @@
+package com.juzoai.flashcardapp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.service.ResilientReads;
+
+// Operator view of the read circuit breaker and snapshot cache on this instance; requires an authenticated caller
+@RestController
+@RequestMapping("/api/admin/resilience")
+public class ResilienceAdminController {
+    private final ResilientReads resilientReads;
+
+    public ResilienceAdminController(ResilientReads resilientReads) {
+        this.resilientReads = resilientReads;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(resilientReads.getStats());
+    }
+}
@@ -0,0 +1,58 @@
+package com.juzoai.flashcardapp.controller;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.sharding.ShardDirectory;
+import com.juzoai.flashcardapp.sharding.ShardRebalancer;
+import com.juzoai.flashcardapp.sharding.ShardTopology;
+
+// Operator endpoints for the sharded deployment; like every /api/admin endpoint they require the admin role
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardAdminController {
+    private final ShardTopology shardTopology;
+    private final ShardDirectory shardDirectory;
+    private final ShardRebalancer shardRebalancer;
+
+    public ShardAdminController(ShardTopology shardTopology, ShardDirectory shardDirectory,
+                                ShardRebalancer shardRebalancer) {
+        this.shardTopology = shardTopology;
+        this.shardDirectory = shardDirectory;
+        this.shardRebalancer = shardRebalancer;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getShards() {
+        return ResponseEntity.ok(Map.of("home", shardTopology.home(), "shards", shardTopology.getNames()));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<?> getUserShard(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of("userId", userId, "shard", shardDirectory.shardForUser(userId)));
+    }
+
+    @PostMapping("/users/{userId}/move")
+    public ResponseEntity<?> moveUser(@PathVariable Long userId, @RequestParam String target) {
+        try {
+            return ResponseEntity.ok(shardRebalancer.moveUser(userId, target));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Error moving user data: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.juzoai.flashcardapp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.service.SuggestService;
+
+// Size and rebuild time of the suggestion index on this instance; requires an authenticated caller
+@RestController
+@RequestMapping("/api/admin/suggest")
+public class SuggestAdminController {
+    private final SuggestService suggestService;
+
+    public SuggestAdminController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(suggestService.getStats());
+    }
+}
@@ -0,0 +1,81 @@
+package com.juzoai.flashcardapp.controller;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import com.juzoai.flashcardapp.service.PurgeService;
+import com.juzoai.flashcardapp.service.SuggestService;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+
+// Account deletion; users can only delete themselves
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UserController {
+    private final UserRepository userRepository;
+    private final PurgeService purgeService;
+    private final ShardRouter shardRouter;
+    private final SuggestService suggestService;
+
+    public UserController(UserRepository userRepository, PurgeService purgeService, ShardRouter shardRouter,
+                          SuggestService suggestService) {
+        this.userRepository = userRepository;
+        this.purgeService = purgeService;
+        this.shardRouter = shardRouter;
+        this.suggestService = suggestService;
+    }
+
+    // The account and its decks are hidden at once; the data is removed in the background
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteUser(@PathVariable Long id, Principal principal) {
+        try {
+            if (!isCurrentUser(id, principal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "You can only delete your own account"));
+            }
+            return purgeService.deleteUser(id)
+                    .<ResponseEntity<?>>map(job -> {
+                        suggestService.ownerRemoved(id);
+                        return ResponseEntity.accepted()
+                                .location(URI.create("/api/users/" + id + "/purge"))
+                                .body(job);
+                    })
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("message", "User not found with id: " + id)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Error deleting user: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/purge")
+    public ResponseEntity<?> getUserPurge(@PathVariable Long id) {
+        return purgeService.findUserJob(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "No deletion in progress for user: " + id)));
+    }
+
+    private boolean isCurrentUser(Long id, Principal principal) {
+        if (principal == null) {
+            return false;
+        }
+        return shardRouter.onHome(() -> userRepository.findByUsername(principal.getName()))
+                .map(User::getId)
+                .filter(id::equals)
+                .isPresent();
+    }
+}
@@ -0,0 +1,22 @@
+package com.juzoai.flashcardapp.invalidation;
+
+// Something cached about an entity changed. The version is the commit time on the writing
+// node, so a receiver holding data loaded after that time may keep it.
+public record Invalidation(Kind kind, long id, long version) {
+
+    // The ordinal is sent on the wire; new kinds go at the end
+    public enum Kind {
+        // A deck row: title, description, owner, card count, deletion
+        DECK,
+        // The cards of a deck
+        DECK_CARDS,
+        // A user row; deleting a user also hides all of their decks
+        USER,
+        // The cards in all of a user's decks
+        USER_CARDS,
+        // The shard directory's placement overrides; the id is unused
+        SHARD_DIRECTORY,
+        // The list of a user's decks
+        USER_DECKS
+    }
+}
@@ -0,0 +1,267 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Tells the caches on every node about committed writes. Invalidations published during a
+// transaction are collected and delivered once it commits, or dropped if it rolls back; the
+// local caches hear about them immediately and the other nodes within one flush interval,
+// coalesced into as few messages as possible. Every message carries the sender's sequence
+// number and idle nodes send heartbeats, so a receiver that missed a message notices the gap
+// and flushes everything it caches instead of serving stale data until a TTL runs out.
+@Slf4j
+public class InvalidationBus implements AutoCloseable {
+
+    private record Key(Invalidation.Kind kind, long id) {
+    }
+
+    private record Peer(long sequence, long heardAt) {
+    }
+
+    // Fresh on every start, so a restarted node is a new sender starting from sequence 1
+    private final long node = new SecureRandom().nextLong();
+    private final InvalidationTransport transport;
+    private final ObjectProvider<InvalidationListener> listeners;
+    private final long flushMs;
+    private final long heartbeatMs;
+
+    private final Object outboxLock = new Object();
+    private LinkedHashMap<Key, Long> outbox = new LinkedHashMap<>();
+    private long sequence;
+    private long lastSentAt;
+    private final Map<Long, Peer> peers = new HashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder gaps = new LongAdder();
+
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "invalidation-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Without a transport, only this node's caches are invalidated
+    public InvalidationBus(InvalidationTransport transport, ObjectProvider<InvalidationListener> listeners,
+                           long flushMs, long heartbeatMs) {
+        this.transport = transport;
+        this.listeners = listeners;
+        this.flushMs = flushMs;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    // Listeners are looked up on delivery, so nothing is received before the context is complete
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.start(this::receive);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the invalidation transport", e);
+        }
+        publisher.scheduleWithFixedDelay(this::tick, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        log.info("Invalidation bus started as node {}", Long.toHexString(node));
+    }
+
+    // Call while the write's transaction is still open, not from an after-commit callback
+    public void publish(Invalidation.Kind kind, long id) {
+        Key key = new Key(kind, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(Set.of(key));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.add(key);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", Long.toHexString(node));
+        stats.put("transport", transport == null ? "none" : transport.getClass().getSimpleName());
+        stats.put("published", published.sum());
+        stats.put("messagesSent", sent.sum());
+        stats.put("sendFailures", sendFailures.sum());
+        stats.put("messagesReceived", received.sum());
+        stats.put("gaps", gaps.sum());
+        synchronized (peers) {
+            stats.put("peers", peers.size());
+        }
+        return stats;
+    }
+
+    // Sends what has been committed since the last flush, or a heartbeat once the node has been quiet for a while
+    synchronized void flush() {
+        LinkedHashMap<Key, Long> batch;
+        synchronized (outboxLock) {
+            batch = outbox;
+            outbox = new LinkedHashMap<>();
+        }
+        long now = System.currentTimeMillis();
+        if (batch.isEmpty()) {
+            if (now - lastSentAt >= heartbeatMs) {
+                send(new InvalidationMessage(node, sequence, List.of()), now);
+            }
+            return;
+        }
+        List<Invalidation> entries = new ArrayList<>(batch.size());
+        batch.forEach((key, version) -> entries.add(new Invalidation(key.kind(), key.id(), version)));
+        for (int from = 0; from < entries.size(); from += InvalidationMessage.MAX_ENTRIES) {
+            List<Invalidation> chunk = entries.subList(from, Math.min(entries.size(), from + InvalidationMessage.MAX_ENTRIES));
+            send(new InvalidationMessage(node, ++sequence, chunk), now);
+        }
+    }
+
+    void receive(byte[] bytes) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            // The sender's next message will show the gap
+            log.debug("Ignoring invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (message.node() == node) {
+            return;
+        }
+        received.increment();
+
+        boolean lost;
+        synchronized (peers) {
+            Peer peer = peers.get(message.node());
+            long last = peer == null ? 0 : peer.sequence();
+            // A heartbeat repeats the last sequence sent, a message with entries carries the next one.
+            // A sender first heard from mid-stream counts as a gap: its earlier messages were missed.
+            long expected = message.entries().isEmpty() ? last : last + 1;
+            lost = message.sequence() > expected;
+            peers.put(message.node(), new Peer(Math.max(last, message.sequence()), System.currentTimeMillis()));
+        }
+        if (lost) {
+            gaps.increment();
+            log.warn("Missed invalidations from node {}, flushing caches", Long.toHexString(message.node()));
+            listeners.orderedStream().forEach(listener -> {
+                try {
+                    listener.invalidateAll();
+                } catch (RuntimeException e) {
+                    log.warn("Cache flush failed in {}: {}", listener.getClass().getSimpleName(), e.getMessage());
+                }
+            });
+        }
+        message.entries().forEach(invalidation -> deliver(invalidation, true));
+    }
+
+    @Override
+    public void close() {
+        publisher.shutdownNow();
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private void committed(Set<Key> keys) {
+        long version = System.currentTimeMillis();
+        published.add(keys.size());
+        for (Key key : keys) {
+            deliver(new Invalidation(key.kind(), key.id(), version), false);
+        }
+        if (transport != null) {
+            synchronized (outboxLock) {
+                keys.forEach(key -> outbox.put(key, version));
+            }
+        }
+    }
+
+    // A failing cache must not fail the write that has already committed
+    private void deliver(Invalidation invalidation, boolean remote) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.invalidate(invalidation, remote);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation of {} {} failed in {}: {}", invalidation.kind(), invalidation.id(),
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+
+    private void send(InvalidationMessage message, long now) {
+        // A message that could not be sent has still used its sequence number, so the receivers
+        // see a gap and flush rather than miss it silently
+        try {
+            transport.send(message.encode());
+            sent.increment();
+        } catch (IOException | RuntimeException e) {
+            sendFailures.increment();
+            log.warn("Could not send invalidations: {}", e.getMessage());
+        }
+        lastSentAt = now;
+    }
+
+    private void tick() {
+        try {
+            flush();
+            forgetSilentPeers();
+        } catch (RuntimeException e) {
+            log.warn("Invalidation flush failed: {}", e.getMessage());
+        }
+    }
+
+    // A node that comes back after going quiet is treated as new, and so as a gap
+    private void forgetSilentPeers() {
+        long cutoff = System.currentTimeMillis() - 10 * Math.max(heartbeatMs, flushMs);
+        synchronized (peers) {
+            peers.values().removeIf(peer -> peer.heardAt() < cutoff);
+        }
+    }
+
+    // This transaction's invalidations. Unbound while the transaction is suspended, so that a
+    // nested REQUIRES_NEW transaction collects and delivers its own.
+    private final class Pending implements TransactionSynchronization {
+        private final Set<Key> keys = new LinkedHashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(InvalidationBus.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(InvalidationBus.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            committed(keys);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationBus.this);
+        }
+    }
+}
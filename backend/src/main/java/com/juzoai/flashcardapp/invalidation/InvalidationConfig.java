@@ -0,0 +1,61 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+
+@Configuration
+@EnableConfigurationProperties(InvalidationProperties.class)
+public class InvalidationConfig {
+
+    @Bean(destroyMethod = "close")
+    public InvalidationBus invalidationBus(InvalidationProperties properties,
+                                           ObjectProvider<InvalidationListener> listeners,
+                                           DataSourceProperties dataSourceProperties) {
+        InvalidationTransport transport = switch (properties.getTransport()) {
+            case NONE -> null;
+            case LOOPBACK -> new LoopbackTransport();
+            case MULTICAST -> multicast(properties.getMulticast());
+            case POSTGRES -> postgres(properties.getPostgres(), dataSourceProperties);
+        };
+        return new InvalidationBus(transport, listeners, properties.getFlushMs(), properties.getHeartbeatMs());
+    }
+
+    private static MulticastTransport multicast(InvalidationProperties.Multicast multicast) {
+        try {
+            InetAddress group = InetAddress.getByName(multicast.getGroup());
+            if (!group.isMulticastAddress()) {
+                throw new IllegalStateException(multicast.getGroup() + " is not a multicast address");
+            }
+            NetworkInterface networkInterface = null;
+            if (multicast.getNetworkInterface() != null && !multicast.getNetworkInterface().isBlank()) {
+                networkInterface = NetworkInterface.getByName(multicast.getNetworkInterface());
+                if (networkInterface == null) {
+                    throw new IllegalStateException("Unknown network interface " + multicast.getNetworkInterface());
+                }
+            }
+            return new MulticastTransport(new InetSocketAddress(group, multicast.getPort()), networkInterface,
+                    multicast.getTimeToLive());
+        } catch (UnknownHostException | SocketException e) {
+            throw new IllegalStateException("Invalid multicast settings: " + e.getMessage(), e);
+        }
+    }
+
+    private static PostgresNotifyTransport postgres(InvalidationProperties.Postgres postgres,
+                                                    DataSourceProperties dataSourceProperties) {
+        return postgres.getUrl() != null
+                ? new PostgresNotifyTransport(postgres.getUrl(), postgres.getUsername(), postgres.getPassword(),
+                        postgres.getChannel())
+                : new PostgresNotifyTransport(dataSourceProperties.determineUrl(),
+                        dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword(),
+                        postgres.getChannel());
+    }
+}
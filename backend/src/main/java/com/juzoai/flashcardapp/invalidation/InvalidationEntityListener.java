@@ -0,0 +1,43 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Publishes every JPA write to decks, cards and users; native and JDBC writes publish their own.
+// Hibernate creates this through Spring while the entity manager factory starts, before the
+// bus may exist, so the bus is looked up on use.
+public class InvalidationEntityListener {
+
+    private final ObjectProvider<InvalidationBus> bus;
+
+    public InvalidationEntityListener(ObjectProvider<InvalidationBus> bus) {
+        this.bus = bus;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void written(Object entity) {
+        InvalidationBus invalidationBus = bus.getIfAvailable();
+        if (invalidationBus == null) {
+            return;
+        }
+        if (entity instanceof Deck deck) {
+            invalidationBus.publish(Invalidation.Kind.DECK, deck.getId());
+            // The column is only filled in once the deck has been read back
+            Long ownerId = deck.getUser() != null ? deck.getUser().getId() : deck.getUserId();
+            if (ownerId != null) {
+                invalidationBus.publish(Invalidation.Kind.USER_DECKS, ownerId);
+            }
+        } else if (entity instanceof Flashcard card) {
+            invalidationBus.publish(Invalidation.Kind.DECK_CARDS, card.getDeck().getId());
+        } else if (entity instanceof User user) {
+            invalidationBus.publish(Invalidation.Kind.USER, user.getId());
+        }
+    }
+}
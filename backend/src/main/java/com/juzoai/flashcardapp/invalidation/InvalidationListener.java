@@ -0,0 +1,12 @@
+package com.juzoai.flashcardapp.invalidation;
+
+// Implemented by beans holding in-process caches of database state. Calls for this node's own
+// writes come on the committing thread; those from other nodes come on the transport's thread.
+public interface InvalidationListener {
+
+    // remote is false for writes committed on this node
+    void invalidate(Invalidation invalidation, boolean remote);
+
+    // Invalidations from another node were lost, so anything cached may be stale
+    void invalidateAll();
+}
@@ -0,0 +1,48 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Wire format: magic, sender node, sequence, entry count, then per entry the kind's ordinal,
+// the id and the version. A message without entries is a heartbeat repeating the last sequence.
+record InvalidationMessage(long node, long sequence, List<Invalidation> entries) {
+
+    static final int MAX_ENTRIES = 256;
+
+    private static final int MAGIC = 0x46434931;
+    private static final int HEADER = Integer.BYTES + 2 * Long.BYTES + Short.BYTES;
+    private static final int ENTRY = 1 + 2 * Long.BYTES;
+
+    byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + entries.size() * ENTRY);
+        buffer.putInt(MAGIC).putLong(node).putLong(sequence).putShort((short) entries.size());
+        for (Invalidation entry : entries) {
+            buffer.put((byte) entry.kind().ordinal()).putLong(entry.id()).putLong(entry.version());
+        }
+        return buffer.array();
+    }
+
+    static InvalidationMessage decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not an invalidation message");
+        }
+        long node = buffer.getLong();
+        long sequence = buffer.getLong();
+        int count = Short.toUnsignedInt(buffer.getShort());
+        if (count > MAX_ENTRIES || bytes.length != HEADER + count * ENTRY) {
+            throw new IllegalArgumentException("Malformed invalidation message");
+        }
+        Invalidation.Kind[] kinds = Invalidation.Kind.values();
+        List<Invalidation> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = Byte.toUnsignedInt(buffer.get());
+            if (kind >= kinds.length) {
+                throw new IllegalArgumentException("Unknown invalidation kind " + kind);
+            }
+            entries.add(new Invalidation(kinds[kind], buffer.getLong(), buffer.getLong()));
+        }
+        return new InvalidationMessage(node, sequence, entries);
+    }
+}
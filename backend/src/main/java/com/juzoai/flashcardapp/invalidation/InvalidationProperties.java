@@ -0,0 +1,44 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.invalidation")
+public class InvalidationProperties {
+
+    public enum Transport {
+        NONE, LOOPBACK, MULTICAST, POSTGRES
+    }
+
+    // NONE for a single instance; its own caches are still invalidated on commit
+    private Transport transport = Transport.NONE;
+
+    // Invalidations committed within this window go out together
+    private long flushMs = 20;
+
+    // An idle node repeats its last sequence number this often, so a lost message is noticed without waiting for the next write
+    private long heartbeatMs = 1000;
+
+    private Multicast multicast = new Multicast();
+
+    private Postgres postgres = new Postgres();
+
+    @Data
+    public static class Multicast {
+        private String group = "239.255.42.99";
+        private int port = 4446;
+        // Name of the network interface to use; the system default when empty
+        private String networkInterface;
+        private int timeToLive = 1;
+    }
+
+    // The connection defaults to spring.datasource; set it for a sharded deployment, to the home shard
+    @Data
+    public static class Postgres {
+        private String channel = "cache_invalidation";
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,17 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+// Carries encoded invalidation messages between nodes. Delivery is best effort: a message that
+// is lost shows up as a sequence gap at the receivers, which then flush their caches.
+public interface InvalidationTransport extends AutoCloseable {
+
+    // The receiver may also be handed this node's own messages
+    void start(Consumer<byte[]> receiver) throws IOException;
+
+    void send(byte[] message) throws IOException;
+
+    @Override
+    void close();
+}
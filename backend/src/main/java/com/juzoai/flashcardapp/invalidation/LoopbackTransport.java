@@ -0,0 +1,43 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-process transport: a message sent through one transport is handed, on the sending thread,
+// to every transport started on the same hub. Lets several buses stand in for nodes in one JVM.
+public class LoopbackTransport implements InvalidationTransport {
+
+    public static final class Hub {
+        private final List<LoopbackTransport> members = new CopyOnWriteArrayList<>();
+    }
+
+    private final Hub hub;
+    private volatile Consumer<byte[]> receiver;
+
+    public LoopbackTransport() {
+        this(new Hub());
+    }
+
+    public LoopbackTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        hub.members.add(this);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (LoopbackTransport member : hub.members) {
+            member.receiver.accept(message.clone());
+        }
+    }
+
+    @Override
+    public void close() {
+        hub.members.remove(this);
+    }
+}
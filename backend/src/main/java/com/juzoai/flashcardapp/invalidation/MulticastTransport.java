@@ -0,0 +1,75 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// UDP multicast on the local network: one datagram per message reaches every node in the
+// group without going through the database. Datagrams can be dropped or reordered; the bus
+// treats either as a gap.
+@Slf4j
+public class MulticastTransport implements InvalidationTransport {
+
+    private static final int MAX_DATAGRAM = 65507;
+
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final int timeToLive;
+    private volatile MulticastSocket socket;
+
+    // A null interface uses the system default for multicast
+    public MulticastTransport(InetSocketAddress group, NetworkInterface networkInterface, int timeToLive) {
+        this.group = group;
+        this.networkInterface = networkInterface;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) throws IOException {
+        MulticastSocket socket = new MulticastSocket(group.getPort());
+        socket.setTimeToLive(timeToLive);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.joinGroup(group, networkInterface);
+        this.socket = socket;
+
+        Thread thread = new Thread(() -> receive(socket, receiver), "invalidation-multicast");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void send(byte[] message) throws IOException {
+        socket.send(new DatagramPacket(message, message.length, group));
+    }
+
+    @Override
+    public void close() {
+        MulticastSocket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void receive(MulticastSocket socket, Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOf(packet.getData(), packet.getLength()));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Could not receive invalidations: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
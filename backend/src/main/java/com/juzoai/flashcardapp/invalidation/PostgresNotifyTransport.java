@@ -0,0 +1,128 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// LISTEN/NOTIFY on the primary database, which every node already reaches. Notifications go
+// only to sessions listening when they are sent, so after the listening connection drops the
+// node reconnects and learns what it missed from the next sequence number. Payloads are text
+// of at most 8000 bytes, so messages are sent Base64 encoded. Both connections are opened
+// directly rather than taken from the pool: one is held for good, the other is used by a
+// single thread.
+@Slf4j
+public class PostgresNotifyTransport implements InvalidationTransport {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int POLL_MS = 500;
+    private static final long RETRY_MS = 2000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+
+    private volatile boolean running = true;
+    private Connection sender;
+
+    public PostgresNotifyTransport(String url, String username, String password, String channel) {
+        // LISTEN takes an identifier, which cannot be a bind parameter
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        Thread thread = new Thread(() -> listen(receiver), "invalidation-listen");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void send(byte[] message) throws IOException {
+        try {
+            if (sender == null || sender.isClosed()) {
+                sender = DriverManager.getConnection(url, username, password);
+            }
+            try (PreparedStatement statement = sender.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, channel);
+                statement.setString(2, Base64.getEncoder().encodeToString(message));
+                statement.execute();
+            }
+        } catch (SQLException e) {
+            closeSender();
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (this) {
+            closeSender();
+        }
+    }
+
+    private void listen(Consumer<byte[]> receiver) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                PGConnection listening = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = listening.getNotifications(POLL_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        try {
+                            receiver.accept(Base64.getDecoder().decode(notification.getParameter()));
+                        } catch (IllegalArgumentException e) {
+                            log.debug("Ignoring notification on {}: {}", channel, e.getMessage());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost the invalidation listener connection, reconnecting: {}", e.getMessage());
+                    sleep();
+                }
+            }
+        }
+    }
+
+    private void closeSender() {
+        if (sender != null) {
+            try {
+                sender.close();
+            } catch (SQLException ignored) {
+                // Already broken
+            }
+            sender = null;
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(RETRY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.juzoai.flashcardapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// An image or animation shown with a card; the file itself is in the media store under its hash
+@Data
+@Entity
+@Table(name = "card_attachments")
+@NoArgsConstructor
+public class CardAttachment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flashcard_id", nullable = false)
+    private Long flashcardId;
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long size;
+
+    public CardAttachment(Long flashcardId, String hash, String contentType, String fileName, long size) {
+        this.flashcardId = flashcardId;
+        this.hash = hash;
+        this.contentType = contentType;
+        this.fileName = fileName;
+        this.size = size;
+    }
+
+    // The same file attached to another card
+    public CardAttachment copyFor(Long otherFlashcardId) {
+        return new CardAttachment(otherFlashcardId, hash, contentType, fileName, size);
+    }
+}
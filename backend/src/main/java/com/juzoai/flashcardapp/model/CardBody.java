@@ -0,0 +1,39 @@
+package com.juzoai.flashcardapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import lombok.NoArgsConstructor;
+
+// Compressed full text of an oversized card side, addressed by the SHA-256 of the text
+@Data
+@Entity
+@Table(name = "card_bodies")
+@NoArgsConstructor
+public class CardBody {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 16)
+    private String codec;
+
+    @Column(name = "original_length", nullable = false)
+    private int originalLength;
+
+    // bytea on PostgreSQL; kept off LOB storage so it reads like any other column
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false)
+    private byte[] content;
+
+    public CardBody(String hash, String codec, int originalLength, byte[] content) {
+        this.hash = hash;
+        this.codec = codec;
+        this.originalLength = originalLength;
+        this.content = content;
+    }
+}
@@ -3,6 +3,7 @@ package com.juzoai.flashcardapp.model;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -11,13 +12,20 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import com.juzoai.flashcardapp.invalidation.InvalidationEntityListener;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.util.HashSet;
 import java.util.Set;
 
+// Deleted decks stay in the table until their purge job removes them, but no query sees them
 @Data
 @Entity
 @Table(name = "decks")
+@SQLRestriction("deleted_at IS NULL")
+@EntityListeners(InvalidationEntityListener.class)
 public class Deck {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,11 +40,25 @@ public class Deck {
     @Column(name = "card_count")
     private int cardCount = 0;
 
+    // Set on clones; cards are read through from the source deck until edited
+    @Column(name = "source_deck_id")
+    private Long sourceDeckId;
+
+    // Relationships stay out of equals/hashCode/toString so they never trigger lazy loads
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = true)
     private User user;
 
-    @OneToMany(mappedBy = "deck", cascade = CascadeType.ALL)
+    // Queries on the owner use the column directly instead of joining the restricted users table
+    @Column(name = "user_id", insertable = false, updatable = false)
+    private Long userId;
+
+    // No cascaded removal: deleting a deck this way would load every card; PurgeService deletes them in chunks
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @OneToMany(mappedBy = "deck", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private Set<Flashcard> flashcards = new HashSet<>();
 
     // Getters and Setters
@@ -72,6 +94,14 @@ public class Deck {
         this.cardCount = cardCount;
     }
     
+    public Long getSourceDeckId() {
+        return sourceDeckId;
+    }
+    
+    public void setSourceDeckId(Long sourceDeckId) {
+        this.sourceDeckId = sourceDeckId;
+    }
+    
     public User getUser() {
         return user;
     }
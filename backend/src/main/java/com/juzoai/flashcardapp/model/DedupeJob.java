@@ -0,0 +1,73 @@
+package com.juzoai.flashcardapp.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Background removal of near-duplicate cards from every deck, with its progress so far
+@Data
+@Entity
+@Table(name = "dedupe_jobs")
+@NoArgsConstructor
+public class DedupeJob {
+
+    public enum Status { PENDING, RUNNING, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A dry run only counts the cards it would remove
+    @Column(name = "dry_run", nullable = false)
+    private boolean dryRun;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "decks_scanned", nullable = false)
+    private long decksScanned;
+
+    @Column(name = "decks_changed", nullable = false)
+    private long decksChanged;
+
+    @Column(name = "cards_removed", nullable = false)
+    private long cardsRemoved;
+
+    // Decks are visited in id order; the job resumes after the last one it finished
+    @Column(name = "last_deck_id")
+    private Long lastDeckId;
+
+    @JsonIgnore
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public DedupeJob(boolean dryRun) {
+        this.dryRun = dryRun;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+    }
+}
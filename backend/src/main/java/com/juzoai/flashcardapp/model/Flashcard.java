@@ -1,26 +1,60 @@
 package com.juzoai.flashcardapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.juzoai.flashcardapp.invalidation.InvalidationEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
 @Table(name = "flashcards")
+@EntityListeners(InvalidationEntityListener.class)
 public class Flashcard {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    // Holds the full text, or a preview when the side is stored compressed in card_bodies
+    @Column(nullable = false, length = 1024)
     private String front;
 
-    @Column(nullable = false)
+    @Column(nullable = false, length = 1024)
     private String back;
 
+    // SHA-256 of the full text when it lives in card_bodies
+    @Column(name = "front_hash", length = 64)
+    private String frontHash;
+
+    @Column(name = "back_hash", length = 64)
+    private String backHash;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "deck_id", nullable = false)
     private Deck deck;
 
+    // Lets queries filter on the foreign key without joining decks, whose restriction would hide
+    // the cards of a deleted source deck from its clones
+    @Column(name = "deck_id", insertable = false, updatable = false)
+    private Long deckId;
+
+    // Overlay rows in a cloned deck point at the inherited card they replace
+    @Column(name = "source_card_id")
+    private Long sourceCardId;
+
+    // Tombstone hiding an inherited card in a cloned deck
+    @Column(nullable = false)
+    private boolean deleted = false;
+
+    // MinHash signature of the full text of both sides, see MinHash
+    @JsonIgnore
+    @ToString.Exclude
+    @Column(name = "minhash")
+    private byte[] minhash;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -46,6 +80,22 @@ public class Flashcard {
         this.back = back;
     }
     
+    public String getFrontHash() {
+        return frontHash;
+    }
+    
+    public void setFrontHash(String frontHash) {
+        this.frontHash = frontHash;
+    }
+    
+    public String getBackHash() {
+        return backHash;
+    }
+    
+    public void setBackHash(String backHash) {
+        this.backHash = backHash;
+    }
+    
     public Deck getDeck() {
         return deck;
     }
@@ -53,4 +103,28 @@ public class Flashcard {
     public void setDeck(Deck deck) {
         this.deck = deck;
     }
-} 
\ No newline at end of file
+    
+    public Long getSourceCardId() {
+        return sourceCardId;
+    }
+    
+    public void setSourceCardId(Long sourceCardId) {
+        this.sourceCardId = sourceCardId;
+    }
+    
+    public boolean isDeleted() {
+        return deleted;
+    }
+    
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public byte[] getMinhash() {
+        return minhash;
+    }
+
+    public void setMinhash(byte[] minhash) {
+        this.minhash = minhash;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.juzoai.flashcardapp.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Background removal of a soft-deleted deck or user, with its progress so far
+@Data
+@Entity
+@Table(name = "purge_jobs")
+@NoArgsConstructor
+public class PurgeJob {
+
+    public enum Target { DECK, USER }
+
+    public enum Status { PENDING, RUNNING, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 16)
+    private Target targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "cards_deleted", nullable = false)
+    private long cardsDeleted;
+
+    @Column(name = "decks_deleted", nullable = false)
+    private long decksDeleted;
+
+    // A running job is owned by whichever instance holds the lease; an expired lease means it can be resumed
+    @JsonIgnore
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public PurgeJob(Target targetType, Long targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+    }
+}
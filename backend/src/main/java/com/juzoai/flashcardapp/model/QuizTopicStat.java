@@ -0,0 +1,42 @@
+package com.juzoai.flashcardapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A signed-in learner's running results for one quiz topic
+@Data
+@Entity
+@Table(name = "quiz_topic_stats")
+@NoArgsConstructor
+public class QuizTopicStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    // Moving average of missed answers, from 0 (always right) to 1 (always wrong)
+    @Column(nullable = false)
+    private double weakness;
+
+    @Column(nullable = false)
+    private int answered;
+
+    @Column(nullable = false)
+    private int correct;
+
+    public QuizTopicStat(Long userId, String topic) {
+        this.userId = userId;
+        this.topic = topic;
+    }
+}
@@ -0,0 +1,47 @@
+package com.juzoai.flashcardapp.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Clients echo the token from their last write; while it is fresh their reads use the primary
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    private final long windowMs;
+
+    public ConsistencyTokenFilter(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (isFresh(request.getHeader(ReadYourWrites.HEADER))) {
+            ReadYourWrites.pin();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private boolean isFresh(String token) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            long age = System.currentTimeMillis() - Long.parseLong(token.trim());
+            return Math.abs(age) < windowMs;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.juzoai.flashcardapp.replication;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Connections are bound lazily, once the transaction's read-only flag is known: read-only
+// transactions run on a replica, everything else on the primary
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaPoolDataSource replicas;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPoolDataSource replicas) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = replicas;
+        setReadOnlyDataSource(replicas);
+    }
+
+    public ReplicaPoolDataSource getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
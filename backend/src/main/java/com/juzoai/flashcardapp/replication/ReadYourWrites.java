@@ -0,0 +1,25 @@
+package com.juzoai.flashcardapp.replication;
+
+// Pins the current thread's reads to the primary, for requests made shortly after the
+// client's own write and for the rest of a request that has just written
+public final class ReadYourWrites {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+}
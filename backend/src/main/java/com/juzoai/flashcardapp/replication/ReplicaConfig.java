@@ -0,0 +1,68 @@
+package com.juzoai.flashcardapp.replication;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replicas for the single-database deployment; a sharded deployment routes by user instead
+@Configuration
+@ConditionalOnExpression("${app.replicas.enabled:false} and !${app.sharding.enabled:false}")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaConfig {
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaProperties properties,
+                                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        // An open-in-view session holds the first connection it gets for the whole request, so a
+        // write following a read would be sent to the replica
+        if (openInView) {
+            throw new IllegalStateException("Read replicas require spring.jpa.open-in-view=false");
+        }
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("app.replicas.nodes must list at least one replica");
+        }
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<ReplicaPoolDataSource.Replica> replicas = new ArrayList<>();
+        for (ReplicaProperties.Node node : properties.getNodes()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + node.getName());
+            dataSource.setJdbcUrl(node.getUrl());
+            dataSource.setUsername(node.getUsername());
+            dataSource.setPassword(node.getPassword());
+            dataSource.setMaximumPoolSize(node.getPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setConnectionTimeout(properties.getHealthCheckTimeoutSeconds() * 1000L);
+            // Start even if a replica is down; the health check brings it back into rotation
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaPoolDataSource.Replica(node.getName(), dataSource));
+        }
+        return new ReadWriteRoutingDataSource(primary, new ReplicaPoolDataSource(primary, replicas,
+                properties.getHealthCheckIntervalMs(), properties.getHealthCheckTimeoutSeconds()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConsistencyTokenFilter> consistencyTokenFilter(ReplicaProperties properties) {
+        FilterRegistrationBean<ConsistencyTokenFilter> registration =
+                new FilterRegistrationBean<>(new ConsistencyTokenFilter(properties.getReadYourWritesWindowMs()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public WriteCommitListener writeCommitListener() {
+        return new WriteCommitListener();
+    }
+}
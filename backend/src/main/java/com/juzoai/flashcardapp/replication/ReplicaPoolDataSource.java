@@ -0,0 +1,122 @@
+package com.juzoai.flashcardapp.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands out read-only connections round-robin over the healthy replicas. Reads fall back to
+// the primary when the thread is pinned for read-your-writes or no replica is healthy.
+@Slf4j
+public class ReplicaPoolDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int healthCheckTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    public ReplicaPoolDataSource(DataSource primary, List<Replica> replicas,
+                                 long healthCheckIntervalMs, int healthCheckTimeoutSeconds) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        if (ReadYourWrites.isPinned()) {
+            return connector.connect(primary);
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return connector.connect(replica.dataSource);
+            } catch (SQLFeatureNotSupportedException e) {
+                // A pool that cannot switch credentials says nothing about the replica's health
+                throw e;
+            } catch (SQLException e) {
+                markUnhealthy(replica, e);
+            }
+        }
+        return connector.connect(primary);
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                boolean valid = connection.isValid(healthCheckTimeoutSeconds);
+                if (valid && !replica.healthy) {
+                    log.info("Replica {} is healthy again", replica.name);
+                }
+                replica.healthy = valid;
+            } catch (SQLException e) {
+                markUnhealthy(replica, e);
+            }
+        }
+    }
+
+    private void markUnhealthy(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            log.warn("Replica {} taken out of rotation: {}", replica.name, e.getMessage());
+        }
+        replica.healthy = false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.juzoai.flashcardapp.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.replicas")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    // After a client's write, its reads stay on the primary for this long; keep it above the replication lag
+    private long readYourWritesWindowMs = 5000;
+
+    private long healthCheckIntervalMs = 5000;
+
+    private int healthCheckTimeoutSeconds = 2;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int poolSize = 10;
+    }
+}
@@ -0,0 +1,27 @@
+package com.juzoai.flashcardapp.replication;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+// After a write commits during a request, the rest of the request reads from the primary and
+// the response carries a token the client sends back to keep reading its own writes
+public class WriteCommitListener implements TransactionExecutionListener {
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        // Only request threads are pinned; the consistency filter clears them when the request ends
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            ReadYourWrites.pin();
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(ReadYourWrites.HEADER, Long.toString(System.currentTimeMillis()));
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.juzoai.flashcardapp.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.juzoai.flashcardapp.model.CardAttachment;
+
+public interface CardAttachmentRepository extends JpaRepository<CardAttachment, Long> {
+    List<CardAttachment> findByFlashcardIdOrderByIdAsc(Long flashcardId);
+    List<CardAttachment> findByFlashcardIdIn(Collection<Long> flashcardIds);
+    Optional<CardAttachment> findByIdAndFlashcardId(Long id, Long flashcardId);
+
+    @Query("SELECT DISTINCT a.hash FROM CardAttachment a")
+    List<String> findAllHashes();
+}
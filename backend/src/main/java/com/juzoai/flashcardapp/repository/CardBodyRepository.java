@@ -0,0 +1,38 @@
+package com.juzoai.flashcardapp.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.juzoai.flashcardapp.model.CardBody;
+
+public interface CardBodyRepository extends JpaRepository<CardBody, String> {
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE card_bodies SET last_used_at = :now WHERE hash = :hash", nativeQuery = true)
+    int touch(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO card_bodies (hash, codec, original_length, content, last_used_at) "
+            + "SELECT :hash, :codec, :originalLength, :content, :now WHERE NOT EXISTS ("
+            + "SELECT 1 FROM card_bodies WHERE hash = :hash)", nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("codec") String codec,
+                       @Param("originalLength") int originalLength, @Param("content") byte[] content,
+                       @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT hash FROM card_bodies WHERE hash > :after ORDER BY hash LIMIT :limit", nativeQuery = true)
+    List<String> findHashesAfter(@Param("after") String after, @Param("limit") int limit);
+
+    // A body used again since the cutoff may belong to a card that is not committed yet
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM card_bodies WHERE hash IN (:hashes) AND last_used_at < :cutoff", nativeQuery = true)
+    int deleteUnusedSince(@Param("hashes") Collection<String> hashes, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,8 +2,56 @@ package com.juzoai.flashcardapp.repository;
 
 import com.juzoai.flashcardapp.model.Deck;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
 public interface DeckRepository extends JpaRepository<Deck, Long> {
     List<Deck> findByUserId(Long userId);
-} 
\ No newline at end of file
+    List<Deck> findBySourceDeckId(Long sourceDeckId);
+
+    // Native so that clones keep resolving their lineage through a source that is waiting to be purged
+    @Query(value = "SELECT source_deck_id FROM decks WHERE id = :id", nativeQuery = true)
+    Optional<Long> findSourceDeckIdById(@Param("id") Long id);
+
+    // Native so that clones waiting to be purged are detached from their source as well
+    @Query(value = "SELECT id FROM decks WHERE source_deck_id = :id ORDER BY id", nativeQuery = true)
+    List<Long> findCloneIdsBySourceDeckId(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE decks SET source_deck_id = :sourceDeckId WHERE id = :id", nativeQuery = true)
+    int updateSourceDeckId(@Param("id") Long id, @Param("sourceDeckId") Long sourceDeckId);
+
+    @Query(value = "SELECT id FROM decks WHERE deleted_at IS NULL ORDER BY id", nativeQuery = true)
+    List<Long> findAllIds();
+
+    @Query(value = "SELECT id FROM decks WHERE deleted_at IS NULL AND id > :after ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findIdsAfter(@Param("after") long after, @Param("limit") int limit);
+
+    interface DeckTitle {
+        Long getId();
+        String getTitle();
+        Long getUserId();
+        Long getSourceDeckId();
+    }
+
+    @Query(value = "SELECT id, title, user_id AS userId, source_deck_id AS sourceDeckId FROM decks "
+            + "WHERE deleted_at IS NULL", nativeQuery = true)
+    List<DeckTitle> findAllTitles();
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE decks SET deleted_at = CURRENT_TIMESTAMP WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE decks SET deleted_at = CURRENT_TIMESTAMP WHERE user_id = :userId AND deleted_at IS NULL",
+            nativeQuery = true)
+    int softDeleteByUserId(@Param("userId") Long userId);
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.juzoai.flashcardapp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.juzoai.flashcardapp.model.DedupeJob;
+
+public interface DedupeJobRepository extends JpaRepository<DedupeJob, Long> {
+}
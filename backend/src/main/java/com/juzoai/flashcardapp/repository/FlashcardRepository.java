@@ -1,12 +1,98 @@
 package com.juzoai.flashcardapp.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.juzoai.flashcardapp.model.Flashcard;
 
 public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
     List<Flashcard> findByDeckId(Long deckId);
+    List<Flashcard> findByDeckIdAndDeletedFalse(Long deckId);
+    List<Flashcard> findByDeckIdInOrderByIdAsc(Collection<Long> deckIds);
+    Optional<Flashcard> findByDeckIdAndSourceCardId(Long deckId, Long sourceCardId);
+    List<Flashcard> findBySourceCardId(Long sourceCardId);
     int countByDeckId(Long deckId);
-} 
\ No newline at end of file
+    int countByDeckIdAndDeletedFalse(Long deckId);
+    boolean existsByDeckId(Long deckId);
+
+    // Cards of a deleted deck are only removed by its purge job; the join hides them until then
+    @Query(value = "SELECT f.* FROM flashcards f JOIN decks d ON d.id = f.deck_id "
+            + "WHERE f.id = :id AND d.deleted_at IS NULL", nativeQuery = true)
+    Optional<Flashcard> findVisibleById(@Param("id") Long id);
+
+    // Rows of the deck, tombstones included, that the clone overrides neither directly nor through the card they replace
+    @Query(value = "SELECT r.* FROM flashcards r WHERE r.deck_id = :deckId AND NOT EXISTS ("
+            + "SELECT 1 FROM flashcards c WHERE c.deck_id = :cloneId "
+            + "AND (c.source_card_id = r.id OR c.source_card_id = r.source_card_id)) ORDER BY r.id LIMIT :limit",
+            nativeQuery = true)
+    List<Flashcard> findNotOverriddenBy(@Param("deckId") Long deckId, @Param("cloneId") Long cloneId,
+                                        @Param("limit") int limit);
+
+    // Rows of the clone that override one of the deck's own overlays or tombstones
+    @Query(value = "SELECT c.* FROM flashcards c JOIN flashcards r ON r.id = c.source_card_id "
+            + "WHERE c.deck_id = :cloneId AND r.deck_id = :deckId AND r.source_card_id IS NOT NULL "
+            + "ORDER BY c.id LIMIT :limit", nativeQuery = true)
+    List<Flashcard> findOverridingOverlaysOf(@Param("deckId") Long deckId, @Param("cloneId") Long cloneId,
+                                             @Param("limit") int limit);
+
+    // Rows of other decks that still override one of the deck's cards
+    @Query(value = "SELECT f.* FROM flashcards f JOIN flashcards r ON r.id = f.source_card_id "
+            + "WHERE r.deck_id = :deckId AND f.deck_id <> :deckId ORDER BY f.id LIMIT :limit", nativeQuery = true)
+    List<Flashcard> findOverridingCardsOf(@Param("deckId") Long deckId, @Param("limit") int limit);
+
+    @Query(value = "SELECT f.* FROM flashcards f JOIN flashcards r ON r.id = f.source_card_id "
+            + "WHERE r.deck_id = :deckId AND f.deck_id IN (:deckIds) ORDER BY f.id LIMIT :limit", nativeQuery = true)
+    List<Flashcard> findOverridingCardsOf(@Param("deckId") Long deckId, @Param("deckIds") Collection<Long> deckIds,
+                                          @Param("limit") int limit);
+
+    @Query(value = "SELECT front_hash FROM flashcards WHERE front_hash IN (:hashes) "
+            + "UNION SELECT back_hash FROM flashcards WHERE back_hash IN (:hashes)", nativeQuery = true)
+    List<String> findBodyHashesIn(@Param("hashes") Collection<String> hashes);
+
+    // Text is only selected for cards that have no signature yet
+    interface CardSignature {
+        Long getId();
+        Long getDeckId();
+        byte[] getMinhash();
+        String getFront();
+        String getBack();
+        String getFrontHash();
+        String getBackHash();
+    }
+
+    @Query(value = "SELECT f.id AS id, f.deck_id AS deckId, f.minhash AS minhash, "
+            + "CASE WHEN f.minhash IS NULL THEN f.front END AS front, "
+            + "CASE WHEN f.minhash IS NULL THEN f.back END AS back, "
+            + "f.front_hash AS frontHash, f.back_hash AS backHash "
+            + "FROM flashcards f JOIN decks d ON d.id = f.deck_id "
+            + "WHERE d.user_id = :userId AND d.deleted_at IS NULL AND f.deleted = FALSE", nativeQuery = true)
+    List<CardSignature> findSignaturesByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT f.id AS id, f.deck_id AS deckId, f.minhash AS minhash, "
+            + "CASE WHEN f.minhash IS NULL THEN f.front END AS front, "
+            + "CASE WHEN f.minhash IS NULL THEN f.back END AS back, "
+            + "f.front_hash AS frontHash, f.back_hash AS backHash "
+            + "FROM flashcards f WHERE f.deck_id = :deckId AND f.deleted = FALSE", nativeQuery = true)
+    List<CardSignature> findSignaturesByDeckId(@Param("deckId") Long deckId);
+
+    // Own rows only: cards a clone inherits belong to its source deck. Large fronts are their preview.
+    interface CardFront {
+        Long getId();
+        Long getDeckId();
+        String getFront();
+    }
+
+    @Query(value = "SELECT f.id AS id, f.deck_id AS deckId, f.front AS front "
+            + "FROM flashcards f JOIN decks d ON d.id = f.deck_id "
+            + "WHERE d.deleted_at IS NULL AND f.deleted = FALSE", nativeQuery = true)
+    List<CardFront> findAllFronts();
+
+    @Query(value = "SELECT f.id AS id, f.deck_id AS deckId, f.front AS front "
+            + "FROM flashcards f WHERE f.deck_id = :deckId AND f.deleted = FALSE", nativeQuery = true)
+    List<CardFront> findFrontsByDeckId(@Param("deckId") Long deckId);
+}
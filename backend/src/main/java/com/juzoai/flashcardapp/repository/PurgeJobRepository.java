@@ -0,0 +1,11 @@
+package com.juzoai.flashcardapp.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.juzoai.flashcardapp.model.PurgeJob;
+
+public interface PurgeJobRepository extends JpaRepository<PurgeJob, Long> {
+    Optional<PurgeJob> findByTargetTypeAndTargetId(PurgeJob.Target targetType, Long targetId);
+}
@@ -0,0 +1,31 @@
+package com.juzoai.flashcardapp.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.juzoai.flashcardapp.model.QuizTopicStat;
+
+public interface QuizTopicStatRepository extends JpaRepository<QuizTopicStat, Long> {
+    List<QuizTopicStat> findByUserId(Long userId);
+
+    // Answer counts only grow, so a write carrying fewer answers than the row arrived late and is dropped
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE quiz_topic_stats SET weakness = :weakness, answered = :answered, correct = :correct "
+            + "WHERE user_id = :userId AND topic = :topic AND answered < :answered", nativeQuery = true)
+    int updateIfNewer(@Param("userId") Long userId, @Param("topic") String topic, @Param("weakness") double weakness,
+                      @Param("answered") int answered, @Param("correct") int correct);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quiz_topic_stats (user_id, topic, weakness, answered, correct) "
+            + "SELECT :userId, :topic, :weakness, :answered, :correct WHERE NOT EXISTS ("
+            + "SELECT 1 FROM quiz_topic_stats WHERE user_id = :userId AND topic = :topic)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("topic") String topic, @Param("weakness") double weakness,
+                       @Param("answered") int answered, @Param("correct") int correct);
+}
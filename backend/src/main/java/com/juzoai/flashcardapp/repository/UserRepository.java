@@ -3,7 +3,11 @@ package com.juzoai.flashcardapp.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.juzoai.flashcardapp.model.User;
 
@@ -11,6 +15,16 @@ import com.juzoai.flashcardapp.model.User;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
-    boolean existsByEmail(String email);
-    boolean existsByUsername(String username);
+
+    // Deleted users keep their name and email until they are purged, so these checks include them
+    @Query(value = "SELECT COUNT(*) > 0 FROM users WHERE email = :email", nativeQuery = true)
+    boolean existsByEmail(@Param("email") String email);
+
+    @Query(value = "SELECT COUNT(*) > 0 FROM users WHERE username = :username", nativeQuery = true)
+    boolean existsByUsername(@Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET deleted_at = CURRENT_TIMESTAMP WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.CardBodyRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Keeps large card sides out of the flashcards table. Oversized text is stored once per
+// distinct content in card_bodies, compressed, and the card keeps a short preview plus the hash.
+// Bodies are shared by every deck that uses them, so with sharding they all live on the home shard.
+// Deleting or editing a card leaves its body in place; a periodic sweep removes bodies that no card
+// on any shard refers to once they have gone unused for the grace period.
+@Slf4j
+@Service
+public class CardBodyService {
+
+    private static final String CODEC = "deflate";
+    private static final int GC_CHUNK = 500;
+
+    private final CardBodyRepository cardBodyRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate bodyTransaction;
+    private final int inlineLimit;
+    private final int previewLength;
+    private final long cacheCapacity;
+    private final long gcIntervalMs;
+    private final long gcGraceMs;
+
+    private final ScheduledExecutorService collector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "card-body-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Bodies are immutable per hash, so cached entries never go stale
+    private final LinkedHashMap<String, String> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedChars = 0;
+
+    public CardBodyService(CardBodyRepository cardBodyRepository, FlashcardRepository flashcardRepository,
+                           ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                           @Value("${app.cards.inline-limit:1024}") int inlineLimit,
+                           @Value("${app.cards.preview-length:200}") int previewLength,
+                           @Value("${app.cards.body-cache-chars:8388608}") long cacheCapacity,
+                           @Value("${app.cards.body-gc-interval-ms:3600000}") long gcIntervalMs,
+                           @Value("${app.cards.body-gc-grace-ms:86400000}") long gcGraceMs) {
+        this.cardBodyRepository = cardBodyRepository;
+        this.flashcardRepository = flashcardRepository;
+        this.shardRouter = shardRouter;
+        // A lost insert race must not roll back the card's own transaction
+        this.bodyTransaction = new TransactionTemplate(transactionManager);
+        this.bodyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.inlineLimit = inlineLimit;
+        this.previewLength = previewLength;
+        this.cacheCapacity = cacheCapacity;
+        this.gcIntervalMs = gcIntervalMs;
+        this.gcGraceMs = gcGraceMs;
+    }
+
+    @Transactional
+    public Flashcard externalize(Flashcard card) {
+        card.setFrontHash(storeIfOversized(card.getFront(), card.getFrontHash()));
+        if (card.getFrontHash() != null) {
+            card.setFront(preview(card.getFront()));
+        }
+        card.setBackHash(storeIfOversized(card.getBack(), card.getBackHash()));
+        if (card.getBackHash() != null) {
+            card.setBack(preview(card.getBack()));
+        }
+        return card;
+    }
+
+    public String fullFront(Flashcard card) {
+        return card.getFrontHash() == null ? card.getFront() : findBody(card.getFrontHash()).orElse(card.getFront());
+    }
+
+    public String fullBack(Flashcard card) {
+        return card.getBackHash() == null ? card.getBack() : findBody(card.getBackHash()).orElse(card.getBack());
+    }
+
+    public Optional<String> findBody(String hash) {
+        String cached = getCached(hash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return shardRouter.onHome(() -> cardBodyRepository.findById(hash)).map(body -> {
+            String text = decompress(body.getContent());
+            putCached(hash, text);
+            return text;
+        });
+    }
+
+    private String storeIfOversized(String text, String currentHash) {
+        if (text == null) {
+            return null;
+        }
+        // A client echoing back an untouched preview keeps the stored body
+        if (currentHash != null && text.length() <= previewLength
+                && findBody(currentHash).map(this::preview).filter(text::equals).isPresent()) {
+            return currentHash;
+        }
+        if (text.length() <= inlineLimit) {
+            return null;
+        }
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(bytes);
+        try {
+            shardRouter.onHome(() -> bodyTransaction.execute(status -> {
+                // Refreshing a stored body keeps it out of a collection in progress
+                LocalDateTime now = LocalDateTime.now();
+                if (cardBodyRepository.touch(hash, now) == 0) {
+                    cardBodyRepository.insertIfAbsent(hash, CODEC, bytes.length, compress(bytes), now);
+                }
+                return null;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer stored the same body first
+        }
+        putCached(hash, text);
+        return hash;
+    }
+
+    // Deletes bodies that no card references and that have not been used within the grace period,
+    // which covers cards whose transaction is not committed yet. Returns the number deleted.
+    public int collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(gcGraceMs));
+        int deleted = 0;
+        List<String> chunk = List.of();
+        while (!(chunk = nextChunk(chunk)).isEmpty()) {
+            List<String> hashes = chunk;
+            Set<String> referenced = new HashSet<>(shardRouter.fanOut(() -> flashcardRepository.findBodyHashesIn(hashes)));
+            List<String> unreferenced = hashes.stream().filter(hash -> !referenced.contains(hash)).toList();
+            if (!unreferenced.isEmpty()) {
+                deleted += shardRouter.onHome(() -> cardBodyRepository.deleteUnusedSince(unreferenced, cutoff));
+            }
+        }
+        if (deleted > 0) {
+            log.info("Removed {} unreferenced card bodies", deleted);
+        }
+        return deleted;
+    }
+
+    // Bodies in hash order, starting after the last hash of the previous chunk
+    private List<String> nextChunk(List<String> previous) {
+        String after = previous.isEmpty() ? "" : previous.get(previous.size() - 1);
+        return shardRouter.onHome(() -> cardBodyRepository.findHashesAfter(after, GC_CHUNK));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startCollector() {
+        if (gcIntervalMs > 0) {
+            collector.scheduleWithFixedDelay(this::collect, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopCollector() {
+        collector.shutdownNow();
+    }
+
+    private void collect() {
+        try {
+            collectGarbage();
+        } catch (RuntimeException e) {
+            log.warn("Card body garbage collection failed: {}", e.getMessage());
+        }
+    }
+
+    private String preview(String text) {
+        if (text.length() <= previewLength) {
+            return text;
+        }
+        int end = previewLength - 1;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + "…";
+    }
+
+    private synchronized String getCached(String hash) {
+        return cache.get(hash);
+    }
+
+    private synchronized void putCached(String hash, String text) {
+        if (text.length() > cacheCapacity || cache.containsKey(hash)) {
+            return;
+        }
+        cache.put(hash, text);
+        cachedChars += text.length();
+        Iterator<Map.Entry<String, String>> eldest = cache.entrySet().iterator();
+        while (cachedChars > cacheCapacity && eldest.hasNext()) {
+            cachedChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String decompress(byte[] bytes) {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(inflater.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.juzoai.flashcardapp.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Failure and slow-call rates over the last window-size calls. Opens when either rate reaches
+// its threshold, rejects calls for open-ms, then lets a single trial call through: the breaker
+// closes if it is fast and succeeds and opens again otherwise. Outcomes that arrive while it
+// is open, from calls started before it opened, are ignored.
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMs;
+    private final long openMs;
+
+    // Ring of the last outcomes: 0 fast success, 1 failure, 2 slow success
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private long timesOpened;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMs, long openMs) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMs = slowCallMs;
+        this.openMs = openMs;
+        this.outcomes = new byte[windowSize];
+    }
+
+    // A caller that is let through must report the outcome, or release the permit if it never made the call
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    public synchronized void onSuccess(long latencyMs) {
+        boolean slow = latencyMs > slowCallMs;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                open();
+            } else {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(slow ? (byte) 2 : (byte) 0);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record((byte) 1);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long retryAfterMs() {
+        return state == State.OPEN ? Math.max(0, openedAt + openMs - System.currentTimeMillis()) : 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("calls", calls);
+        stats.put("failureRate", calls == 0 ? 0.0 : (double) failures / calls);
+        stats.put("slowCallRate", calls == 0 ? 0.0 : (double) slowCalls / calls);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+
+    private void record(byte outcome) {
+        if (calls == windowSize) {
+            forget(outcomes[next]);
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % windowSize;
+        if (outcome == 1) {
+            failures++;
+        } else if (outcome == 2) {
+            slowCalls++;
+        }
+        if (calls >= minimumCalls && (failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls)) {
+            open();
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == 1) {
+            failures--;
+        } else if (outcome == 2) {
+            slowCalls--;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probing = false;
+        timesOpened++;
+        reset();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
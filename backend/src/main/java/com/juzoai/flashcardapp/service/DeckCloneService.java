@@ -0,0 +1,355 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.model.CardAttachment;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.CardAttachmentRepository;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Copy-on-write deck sharing. A clone is a deck row pointing at its source deck; it only
+// owns the cards added to it, overlay rows for inherited cards that were edited, and
+// tombstones for inherited cards that were deleted.
+@Service
+@RequiredArgsConstructor
+public class DeckCloneService {
+
+    // Guards against cycles and keeps merged reads bounded
+    private static final int MAX_CLONE_DEPTH = 16;
+
+    private final DeckRepository deckRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final UserRepository userRepository;
+    private final CardAttachmentRepository cardAttachmentRepository;
+
+    @Transactional
+    public Optional<Deck> cloneDeck(Long sourceDeckId, Long userId) {
+        return deckRepository.findById(sourceDeckId).map(source -> {
+            // A clone without edits of its own adds nothing to the view, so share its source directly,
+            // unless that source was deleted and is about to be purged
+            Long target = source.getId();
+            if (source.getSourceDeckId() != null && !flashcardRepository.existsByDeckId(source.getId())
+                    && deckRepository.existsById(source.getSourceDeckId())) {
+                target = source.getSourceDeckId();
+            }
+
+            Deck clone = new Deck();
+            clone.setTitle(source.getTitle());
+            clone.setDescription(source.getDescription());
+            clone.setCardCount(source.getCardCount());
+            clone.setSourceDeckId(target);
+            if (userId != null) {
+                clone.setUser(userRepository.getReferenceById(userId));
+            }
+            return deckRepository.save(clone);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<Flashcard> findCards(Deck deck) {
+        // A clone detached from a purged source may still hold tombstones until the purge job removes them
+        if (deck.getSourceDeckId() == null) {
+            return flashcardRepository.findByDeckIdAndDeletedFalse(deck.getId());
+        }
+
+        List<Long> lineage = lineage(deck);
+        Map<Long, List<Flashcard>> rowsByDeck = new HashMap<>();
+        for (Flashcard card : flashcardRepository.findByDeckIdInOrderByIdAsc(lineage)) {
+            rowsByDeck.computeIfAbsent(card.getDeck().getId(), k -> new ArrayList<>()).add(card);
+        }
+
+        // Apply levels from the root down; overlays keep the position of the card they replace
+        Map<Long, Flashcard> visible = new LinkedHashMap<>();
+        Map<Long, Long> originOf = new HashMap<>();
+        for (int i = lineage.size() - 1; i >= 0; i--) {
+            for (Flashcard card : rowsByDeck.getOrDefault(lineage.get(i), List.of())) {
+                Long origin = card.getSourceCardId() == null
+                        ? card.getId()
+                        : originOf.getOrDefault(card.getSourceCardId(), card.getSourceCardId());
+                originOf.put(card.getId(), origin);
+                if (card.isDeleted()) {
+                    visible.remove(origin);
+                } else {
+                    visible.put(origin, card);
+                }
+            }
+        }
+        return new ArrayList<>(visible.values());
+    }
+
+    @Transactional(readOnly = true)
+    public int countCards(Deck deck) {
+        if (deck.getSourceDeckId() == null) {
+            return flashcardRepository.countByDeckIdAndDeletedFalse(deck.getId());
+        }
+        return findCards(deck).size();
+    }
+
+    @Transactional
+    public Optional<Flashcard> updateCard(Deck deck, Long cardId, Flashcard changes) {
+        return flashcardRepository.findById(cardId).map(existing -> {
+            if (ownedBy(existing, deck)) {
+                copyContent(changes, existing);
+                return flashcardRepository.save(existing);
+            }
+            if (!lineage(deck).contains(existing.getDeck().getId())) {
+                return null;
+            }
+
+            // Inherited card: materialize (or reuse) this deck's overlay row
+            Optional<Flashcard> existingOverlay = flashcardRepository.findByDeckIdAndSourceCardId(deck.getId(), cardId);
+            Flashcard overlay = existingOverlay.orElseGet(() -> newOverlay(deck, cardId));
+            copyContent(changes, overlay);
+            overlay.setDeleted(false);
+            Flashcard saved = flashcardRepository.save(overlay);
+            if (existingOverlay.isEmpty()) {
+                copyAttachments(Map.of(cardId, saved.getId()));
+            }
+            return saved;
+        });
+    }
+
+    // The row of this deck that shows the card, materializing an unchanged overlay for an
+    // inherited card so that it can be given attachments of its own
+    @Transactional
+    public Optional<Flashcard> ownCard(Deck deck, Long cardId) {
+        return flashcardRepository.findById(cardId).map(existing -> {
+            if (existing.getDeck().getId().equals(deck.getId())) {
+                return existing.isDeleted() ? null : existing;
+            }
+            if (deck.getSourceDeckId() == null || !lineage(deck).contains(existing.getDeck().getId())) {
+                return null;
+            }
+            Optional<Flashcard> existingOverlay = flashcardRepository.findByDeckIdAndSourceCardId(deck.getId(), cardId);
+            if (existingOverlay.isPresent()) {
+                return existingOverlay.get().isDeleted() ? null : existingOverlay.get();
+            }
+            Flashcard overlay = newOverlay(deck, cardId);
+            copyContent(existing, overlay);
+            Flashcard saved = flashcardRepository.save(overlay);
+            copyAttachments(Map.of(cardId, saved.getId()));
+            return saved;
+        });
+    }
+
+    @Transactional
+    public boolean deleteCard(Deck deck, Long cardId) {
+        Optional<Flashcard> cardOpt = flashcardRepository.findById(cardId);
+        if (cardOpt.isEmpty()) {
+            return false;
+        }
+
+        Flashcard card = cardOpt.get();
+        if (ownedBy(card, deck)) {
+            if (card.getSourceCardId() == null) {
+                flashcardRepository.delete(card);
+            } else {
+                // Deleting an overlay must keep hiding the card it replaced
+                card.setDeleted(true);
+                flashcardRepository.save(card);
+            }
+            return true;
+        }
+        if (!lineage(deck).contains(card.getDeck().getId())) {
+            return false;
+        }
+
+        Flashcard tombstone = flashcardRepository.findByDeckIdAndSourceCardId(deck.getId(), cardId)
+                .orElseGet(() -> newOverlay(deck, cardId));
+        tombstone.setFront("");
+        tombstone.setBack("");
+        tombstone.setFrontHash(null);
+        tombstone.setBackHash(null);
+        tombstone.setMinhash(null);
+        tombstone.setDeleted(true);
+        flashcardRepository.save(tombstone);
+        return true;
+    }
+
+    // Turns every clone of the deck into a deck that no longer reads through it, in one transaction
+    @Transactional
+    public void detachClones(Long deckId) {
+        while (detachClonesStep(deckId, Integer.MAX_VALUE) > 0) {
+            // Each step makes progress until no row refers to the deck
+        }
+    }
+
+    // One bounded step of detaching the deck's clones before the deck is purged: handles at most
+    // limit cards and returns how many it handled, or 0 once nothing reads through the deck. Every
+    // step leaves each clone showing the same cards, so the purge job commits between steps and
+    // can stop and resume anywhere. A clone first gets a row of its own for each row of the deck,
+    // and clones of the clone are pointed at those rows. The clone then reads through the deck's
+    // source instead, and finally drops its references to the deck.
+    @Transactional
+    public int detachClonesStep(Long deckId, int limit) {
+        List<Long> clones = deckRepository.findCloneIdsBySourceDeckId(deckId);
+        if (clones.isEmpty()) {
+            return dropReferences(deckId, limit);
+        }
+        Long cloneId = clones.get(0);
+
+        List<Flashcard> inherited = flashcardRepository.findNotOverriddenBy(deckId, cloneId, limit);
+        if (!inherited.isEmpty()) {
+            Deck clone = deckRepository.getReferenceById(cloneId);
+            Map<Long, Long> copyOf = new HashMap<>();
+            for (Flashcard card : inherited) {
+                Flashcard copy = newOverlay(clone, card.getId());
+                copyContent(card, copy);
+                copy.setDeleted(card.isDeleted());
+                copyOf.put(card.getId(), flashcardRepository.save(copy).getId());
+            }
+            copyAttachments(copyOf);
+            return inherited.size();
+        }
+
+        // Clones of the clone may replace the deck's cards directly; they replace the clone's rows instead
+        List<Long> descendants = descendants(cloneId);
+        List<Flashcard> deeper = descendants.isEmpty()
+                ? List.of()
+                : flashcardRepository.findOverridingCardsOf(deckId, descendants, limit);
+        if (!deeper.isEmpty()) {
+            for (Flashcard overlay : deeper) {
+                repoint(overlay, rowReplacing(cloneId, overlay.getSourceCardId()));
+            }
+            return deeper.size();
+        }
+
+        // Rows replacing the deck's own overlays and tombstones replace the cards those replaced
+        List<Flashcard> overlays = flashcardRepository.findOverridingOverlaysOf(deckId, cloneId, limit);
+        if (!overlays.isEmpty()) {
+            Map<Long, Long> replaced = new HashMap<>();
+            for (Flashcard card : flashcardRepository.findAllById(overlays.stream().map(Flashcard::getSourceCardId).toList())) {
+                replaced.put(card.getId(), card.getSourceCardId());
+            }
+            for (Flashcard overlay : overlays) {
+                repoint(overlay, replaced.get(overlay.getSourceCardId()));
+            }
+            return overlays.size();
+        }
+
+        // The clone now overrides every card of the deck
+        deckRepository.updateSourceDeckId(cloneId, deckRepository.findSourceDeckIdById(deckId).orElse(null));
+        return 1;
+    }
+
+    // Rows that replaced the deck's own cards become plain cards; tombstones of them have nothing left to hide
+    private int dropReferences(Long deckId, int limit) {
+        List<Flashcard> rows = flashcardRepository.findOverridingCardsOf(deckId, limit);
+        for (Flashcard row : rows) {
+            if (row.isDeleted()) {
+                // Deeper clones that brought the card back keep it as a card of their own
+                for (Flashcard deeper : flashcardRepository.findBySourceCardId(row.getId())) {
+                    if (deeper.isDeleted()) {
+                        flashcardRepository.delete(deeper);
+                    } else {
+                        deeper.setSourceCardId(null);
+                        flashcardRepository.save(deeper);
+                    }
+                }
+                flashcardRepository.delete(row);
+            } else {
+                row.setSourceCardId(null);
+                flashcardRepository.save(row);
+            }
+        }
+        return rows.size();
+    }
+
+    // The clone's row for a card of its source: the copy of that card, or the row that already
+    // replaced the card the source's row replaced
+    private Long rowReplacing(Long cloneId, Long sourceRowId) {
+        return flashcardRepository.findByDeckIdAndSourceCardId(cloneId, sourceRowId)
+                .or(() -> flashcardRepository.findById(sourceRowId)
+                        .filter(row -> row.getSourceCardId() != null)
+                        .flatMap(row -> flashcardRepository.findByDeckIdAndSourceCardId(cloneId, row.getSourceCardId())))
+                .map(Flashcard::getId)
+                .orElseThrow();
+    }
+
+    // Clones of the deck, their clones and so on, bounded like a lineage
+    private List<Long> descendants(Long deckId) {
+        List<Long> descendants = new ArrayList<>();
+        List<Long> level = List.of(deckId);
+        for (int depth = 1; depth < MAX_CLONE_DEPTH && !level.isEmpty(); depth++) {
+            List<Long> next = new ArrayList<>();
+            for (Long id : level) {
+                next.addAll(deckRepository.findCloneIdsBySourceDeckId(id));
+            }
+            next.removeAll(descendants);
+            descendants.addAll(next);
+            level = next;
+        }
+        return descendants;
+    }
+
+    // Points an overlay at another card. If the deck already has a row for that card, the two stand
+    // for the same card and reads show the newer one, so only that one is kept.
+    private void repoint(Flashcard overlay, Long sourceCardId) {
+        Optional<Flashcard> other = flashcardRepository.findByDeckIdAndSourceCardId(overlay.getDeck().getId(), sourceCardId);
+        if (other.isPresent() && other.get().getId() > overlay.getId()) {
+            flashcardRepository.delete(overlay);
+            return;
+        }
+        other.ifPresent(row -> {
+            flashcardRepository.delete(row);
+            flashcardRepository.flush();
+        });
+        overlay.setSourceCardId(sourceCardId);
+        flashcardRepository.save(overlay);
+    }
+
+    // Attachment rows are small and the files are shared by hash, so copies cost no media storage
+    private void copyAttachments(Map<Long, Long> copyOf) {
+        if (copyOf.isEmpty()) {
+            return;
+        }
+        List<CardAttachment> copies = new ArrayList<>();
+        for (CardAttachment attachment : cardAttachmentRepository.findByFlashcardIdIn(copyOf.keySet())) {
+            copies.add(attachment.copyFor(copyOf.get(attachment.getFlashcardId())));
+        }
+        cardAttachmentRepository.saveAll(copies);
+    }
+
+    // The deck itself followed by its sources, nearest first
+    private List<Long> lineage(Deck deck) {
+        List<Long> lineage = new ArrayList<>();
+        lineage.add(deck.getId());
+        Long source = deck.getSourceDeckId();
+        while (source != null && lineage.size() < MAX_CLONE_DEPTH && !lineage.contains(source)) {
+            lineage.add(source);
+            source = deckRepository.findSourceDeckIdById(source).orElse(null);
+        }
+        return lineage;
+    }
+
+    private boolean ownedBy(Flashcard card, Deck deck) {
+        return deck.getSourceDeckId() == null || card.getDeck().getId().equals(deck.getId());
+    }
+
+    // Large bodies are shared by hash, so copying a card never duplicates them
+    private void copyContent(Flashcard from, Flashcard to) {
+        to.setFront(from.getFront());
+        to.setBack(from.getBack());
+        to.setFrontHash(from.getFrontHash());
+        to.setBackHash(from.getBackHash());
+        to.setMinhash(from.getMinhash());
+    }
+
+    private Flashcard newOverlay(Deck deck, Long sourceCardId) {
+        Flashcard overlay = new Flashcard();
+        overlay.setDeck(deck);
+        overlay.setSourceCardId(sourceCardId);
+        return overlay;
+    }
+}
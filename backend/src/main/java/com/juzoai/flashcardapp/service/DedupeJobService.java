@@ -0,0 +1,205 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.model.DedupeJob;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.DedupeJobRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Deduplicates every deck in the background for an operator. Jobs are stored on the home shard
+// and leased while they run, like purge jobs. A job deduplicates one deck per transaction, in
+// deck id order, records how far it got after each deck and pauses in between, so a job
+// interrupted by a restart resumes after the last deck it finished.
+@Slf4j
+@Service
+public class DedupeJobService {
+
+    // Deck ids fetched from each shard per round
+    private static final int DECK_BATCH = 100;
+
+    private final ShardRouter shardRouter;
+    private final DedupeJobRepository dedupeJobRepository;
+    private final DeckRepository deckRepository;
+    private final DuplicateService duplicateService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final long pauseMs;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "dedupe-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public DedupeJobService(ShardRouter shardRouter, DedupeJobRepository dedupeJobRepository,
+                            DeckRepository deckRepository, DuplicateService duplicateService,
+                            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            @Value("${app.dedupe.job-pause-ms:20}") long pauseMs,
+                            @Value("${app.dedupe.job-poll-interval-ms:5000}") long pollIntervalMs,
+                            @Value("${app.dedupe.job-lease-ms:60000}") long leaseMs) {
+        this.shardRouter = shardRouter;
+        this.dedupeJobRepository = dedupeJobRepository;
+        this.deckRepository = deckRepository;
+        this.duplicateService = duplicateService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.pauseMs = pauseMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+    }
+
+    public DedupeJob start(boolean dryRun) {
+        return shardRouter.onHome(() -> dedupeJobRepository.save(new DedupeJob(dryRun)));
+    }
+
+    public Optional<DedupeJob> findJob(Long jobId) {
+        return shardRouter.onHome(() -> dedupeJobRepository.findById(jobId));
+    }
+
+    // Runs every job that is not finished or leased by another instance; returns how many completed
+    public int runPendingJobs() {
+        int completed = 0;
+        Optional<Long> jobId;
+        while (running && (jobId = claimNext()).isPresent()) {
+            if (run(jobId.get())) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startWorker() {
+        if (pollIntervalMs > 0) {
+            worker.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        running = false;
+        worker.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            runPendingJobs();
+        } catch (RuntimeException e) {
+            log.warn("Dedupe worker failed: {}", e.getMessage());
+        }
+    }
+
+    private Optional<Long> claimNext() {
+        return shardRouter.onHome(() -> transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> candidates = jdbcTemplate.queryForList(
+                    "SELECT id FROM dedupe_jobs WHERE status <> 'DONE' AND (lease_until IS NULL OR lease_until < ?) "
+                            + "ORDER BY id LIMIT 10", Long.class, now);
+            for (Long id : candidates) {
+                int claimed = jdbcTemplate.update(
+                        "UPDATE dedupe_jobs SET status = 'RUNNING', lease_until = ?, updated_at = ? "
+                                + "WHERE id = ? AND status <> 'DONE' AND (lease_until IS NULL OR lease_until < ?)",
+                        leaseEnd(now), now, id, now);
+                if (claimed == 1) {
+                    return Optional.of(id);
+                }
+            }
+            return Optional.<Long>empty();
+        }));
+    }
+
+    private boolean run(Long jobId) {
+        DedupeJob job = findJob(jobId).orElse(null);
+        if (job == null) {
+            return false;
+        }
+        try {
+            long after = job.getLastDeckId() != null ? job.getLastDeckId() : 0L;
+            List<Long> deckIds;
+            while (!(deckIds = nextDecks(after)).isEmpty()) {
+                for (Long deckId : deckIds) {
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        return false;
+                    }
+                    // A deck deleted since it was listed is skipped
+                    int removed = duplicateService.dedupeDeck(deckId, job.isDryRun())
+                            .map(DuplicateService.DedupeResult::cardsRemoved)
+                            .orElse(0);
+                    recordProgress(jobId, deckId, removed);
+                    after = deckId;
+                    if (!pause()) {
+                        return false;
+                    }
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            shardRouter.onHome(() -> jdbcTemplate.update(
+                    "UPDATE dedupe_jobs SET status = 'DONE', lease_until = NULL, last_error = NULL, "
+                            + "finished_at = ?, updated_at = ? WHERE id = ?", now, now, jobId));
+            log.info("Dedupe job {} finished", jobId);
+            return true;
+        } catch (RuntimeException e) {
+            // Keep the lease so the job is retried on a later poll rather than in a tight loop
+            log.warn("Dedupe job {} failed: {}", jobId, e.getMessage());
+            String message = String.valueOf(e.getMessage());
+            shardRouter.onHome(() -> jdbcTemplate.update(
+                    "UPDATE dedupe_jobs SET last_error = ?, updated_at = ? WHERE id = ?",
+                    message.substring(0, Math.min(message.length(), 1000)), LocalDateTime.now(), jobId));
+            return false;
+        }
+    }
+
+    // The next decks in id order across all shards
+    private List<Long> nextDecks(long after) {
+        return shardRouter.fanOut(() -> deckRepository.findIdsAfter(after, DECK_BATCH)).stream()
+                .sorted(Comparator.naturalOrder())
+                .limit(DECK_BATCH)
+                .toList();
+    }
+
+    // Also renews the lease, so a job keeps its owner for as long as it makes progress
+    private void recordProgress(Long jobId, Long deckId, int removed) {
+        LocalDateTime now = LocalDateTime.now();
+        shardRouter.onHome(() -> jdbcTemplate.update(
+                "UPDATE dedupe_jobs SET decks_scanned = decks_scanned + 1, decks_changed = decks_changed + ?, "
+                        + "cards_removed = cards_removed + ?, last_deck_id = ?, lease_until = ?, updated_at = ? "
+                        + "WHERE id = ?",
+                removed > 0 ? 1 : 0, removed, deckId, leaseEnd(now), now, jobId));
+    }
+
+    private LocalDateTime leaseEnd(LocalDateTime now) {
+        return now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs));
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
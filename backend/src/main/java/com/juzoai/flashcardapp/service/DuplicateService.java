@@ -0,0 +1,399 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationBus;
+import com.juzoai.flashcardapp.invalidation.InvalidationListener;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+// Near-duplicate cards. Every card carries a MinHash signature of its full text. Each owner's
+// cards are kept in an in-memory LSH index, built on first use, dropped when another instance
+// reports a change to the owner's cards and rebuilt after the TTL in any case, which lets new
+// and imported cards be checked without comparing them to every other card. Existing decks are deduplicated by a
+// batch job that signs and compares a deck's cards in parallel on a fork-join pool.
+@Service
+public class DuplicateService implements InvalidationListener {
+
+    // Signing and candidate search per task
+    private static final int LEAF_SIZE = 256;
+
+    public record ImportedCard(Flashcard card, List<Long> possibleDuplicates) {
+    }
+
+    public record SkippedCard(int position, Long duplicateOf) {
+    }
+
+    public record ImportResult(List<ImportedCard> imported, List<SkippedCard> skipped) {
+    }
+
+    public record DuplicateGroup(Long keep, List<Long> removed) {
+    }
+
+    public record DedupeResult(Long deckId, int cardsScanned, int cardsRemoved, boolean dryRun,
+                               List<DuplicateGroup> groups) {
+    }
+
+    private static final class ScopeIndex {
+        private final LshIndex index = new LshIndex();
+        private final long loadedAt = System.currentTimeMillis();
+
+        synchronized List<LshIndex.Match> find(int[] signature, double threshold) {
+            return index.find(signature, threshold);
+        }
+
+        synchronized void add(Long cardId, Long deckId, int[] signature) {
+            index.add(cardId, deckId, signature);
+        }
+
+        synchronized void remove(Long cardId) {
+            index.remove(cardId);
+        }
+    }
+
+    private final FlashcardRepository flashcardRepository;
+    private final DeckRepository deckRepository;
+    private final DeckCloneService deckCloneService;
+    private final CardBodyService cardBodyService;
+    private final SuggestService suggestService;
+    private final ShardRouter shardRouter;
+    private final InvalidationBus invalidationBus;
+    private final TransactionTemplate deckTransaction;
+    private final double threshold;
+    private final int maxImport;
+    private final long indexTtlMs;
+    private final ForkJoinPool pool;
+
+    private final LinkedHashMap<String, ScopeIndex> scopes;
+
+    public DuplicateService(FlashcardRepository flashcardRepository, DeckRepository deckRepository,
+                            DeckCloneService deckCloneService, CardBodyService cardBodyService,
+                            SuggestService suggestService,
+                            ShardRouter shardRouter, InvalidationBus invalidationBus,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.dedupe.threshold:0.8}") double threshold,
+                            @Value("${app.dedupe.max-import:5000}") int maxImport,
+                            @Value("${app.dedupe.index-scopes:1000}") int indexScopes,
+                            @Value("${app.dedupe.index-ttl-ms:600000}") long indexTtlMs,
+                            @Value("${app.dedupe.parallelism:0}") int parallelism) {
+        this.flashcardRepository = flashcardRepository;
+        this.deckRepository = deckRepository;
+        this.deckCloneService = deckCloneService;
+        this.cardBodyService = cardBodyService;
+        this.suggestService = suggestService;
+        this.shardRouter = shardRouter;
+        this.invalidationBus = invalidationBus;
+        this.deckTransaction = new TransactionTemplate(transactionManager);
+        this.threshold = threshold;
+        this.maxImport = maxImport;
+        this.indexTtlMs = indexTtlMs;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.scopes = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ScopeIndex> eldest) {
+                return size() > indexScopes;
+            }
+        };
+    }
+
+    public int getMaxImport() {
+        return maxImport;
+    }
+
+    // Signs the full text of both sides, also when a side has been replaced by its preview
+    public void sign(Flashcard card) {
+        card.setMinhash(MinHash.toBytes(
+                MinHash.signature(cardBodyService.fullFront(card), cardBodyService.fullBack(card))));
+    }
+
+    // Other cards of the deck owner that are likely duplicates of the signed card
+    public List<Long> findDuplicates(Deck deck, Flashcard card) {
+        int[] signature = MinHash.fromBytes(card.getMinhash());
+        if (signature == null) {
+            return List.of();
+        }
+        return scopeIndex(deck).find(signature, threshold).stream()
+                .map(LshIndex.Match::cardId)
+                .filter(id -> !id.equals(card.getId()) && !id.equals(card.getSourceCardId()))
+                .toList();
+    }
+
+    // Brings the owner's index up to date once the card's transaction has committed
+    public void indexAfterCommit(Deck deck, Flashcard card) {
+        Long cardId = card.getId();
+        Long deckId = card.getDeck().getId();
+        int[] signature = card.isDeleted() ? null : MinHash.fromBytes(card.getMinhash());
+        publishScope(deck);
+        afterCommit(() -> {
+            ScopeIndex index = cachedScope(scopeOf(deck));
+            if (index == null) {
+                return;
+            }
+            if (signature == null) {
+                index.remove(cardId);
+            } else {
+                index.add(cardId, deckId, signature);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Deck deck, Long cardId) {
+        publishScope(deck);
+        afterCommit(() -> {
+            ScopeIndex index = cachedScope(scopeOf(deck));
+            if (index != null) {
+                index.remove(cardId);
+            }
+        });
+    }
+
+    // Adds the cards in order. With skipDuplicates, a card that duplicates a card already in the
+    // deck or earlier in the import is left out; duplicates in the owner's other decks are only flagged.
+    @Transactional
+    public ImportResult importCards(Deck deck, List<Flashcard> cards, boolean skipDuplicates) {
+        // Imported cards carry their full text; body hashes are assigned when they are saved
+        cards.forEach(card -> {
+            card.setFrontHash(null);
+            card.setBackHash(null);
+        });
+        pool.submit(() -> cards.parallelStream().forEach(this::sign)).join();
+
+        ScopeIndex existing = scopeIndex(deck);
+        LshIndex batch = new LshIndex();
+        List<ImportedCard> imported = new ArrayList<>();
+        List<SkippedCard> skipped = new ArrayList<>();
+        for (int position = 0; position < cards.size(); position++) {
+            Flashcard card = cards.get(position);
+            int[] signature = MinHash.fromBytes(card.getMinhash());
+            List<LshIndex.Match> matches = new ArrayList<>(batch.find(signature, threshold));
+            matches.addAll(existing.find(signature, threshold));
+            Optional<Long> inDeck = matches.stream()
+                    .filter(match -> match.deckId().equals(deck.getId()))
+                    .map(LshIndex.Match::cardId)
+                    .findFirst();
+            if (skipDuplicates && inDeck.isPresent()) {
+                skipped.add(new SkippedCard(position, inDeck.get()));
+                continue;
+            }
+
+            card.setId(null);
+            card.setSourceCardId(null);
+            card.setDeleted(false);
+            card.setDeck(deck);
+            Flashcard saved = flashcardRepository.save(cardBodyService.externalize(card));
+            batch.add(saved.getId(), deck.getId(), signature);
+            imported.add(new ImportedCard(saved, matches.stream().map(LshIndex.Match::cardId).distinct().toList()));
+        }
+
+        deck.setCardCount(deckCloneService.countCards(deck));
+        deckRepository.save(deck);
+        imported.forEach(card -> indexAfterCommit(deck, card.card()));
+        return new ImportResult(imported, skipped);
+    }
+
+    // Keeps the oldest card of each group of near-duplicates in the deck's view and deletes the
+    // others; inherited cards of a clone are hidden with tombstones as usual
+    public Optional<DedupeResult> dedupeDeck(Long deckId, boolean dryRun) {
+        return Optional.ofNullable(shardRouter.forDeck(deckId, () -> deckTransaction.execute(status ->
+                deckRepository.findById(deckId).map(deck -> dedupe(deck, dryRun)).orElse(null))));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private DedupeResult dedupe(Deck deck, boolean dryRun) {
+        List<Flashcard> cards = deckCloneService.findCards(deck);
+        int n = cards.size();
+        int[][] signatures = new int[n][];
+        pool.invoke(new SignTask(cards, signatures, 0, n));
+
+        LshIndex index = new LshIndex();
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Flashcard card = cards.get(i);
+            if (!dryRun && card.getMinhash() == null) {
+                card.setMinhash(MinHash.toBytes(signatures[i]));
+            }
+            index.add(card.getId(), card.getDeck().getId(), signatures[i]);
+            positions.put(card.getId(), i);
+        }
+        // The index is only read from here on, so the lookups can run in parallel
+        List<List<LshIndex.Match>> matches = pool.submit(() -> IntStream.range(0, n).parallel()
+                .mapToObj(i -> index.find(signatures[i], threshold))
+                .toList()).join();
+
+        Set<Long> removed = new HashSet<>();
+        List<DuplicateGroup> groups = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Long keep = cards.get(i).getId();
+            if (removed.contains(keep)) {
+                continue;
+            }
+            List<Long> duplicates = matches.get(i).stream()
+                    .map(LshIndex.Match::cardId)
+                    .filter(id -> positions.get(id) > positions.get(keep) && !removed.contains(id))
+                    .sorted()
+                    .toList();
+            if (!duplicates.isEmpty()) {
+                removed.addAll(duplicates);
+                groups.add(new DuplicateGroup(keep, duplicates));
+            }
+        }
+
+        if (!dryRun && !removed.isEmpty()) {
+            for (Long cardId : removed) {
+                // Both in-memory indexes drop the card once the deletion commits
+                deckCloneService.deleteCard(deck, cardId);
+                removeAfterCommit(deck, cardId);
+                suggestService.cardRemoved(deck.getId(), cardId);
+            }
+            deck.setCardCount(deckCloneService.countCards(deck));
+            deckRepository.save(deck);
+        }
+        return new DedupeResult(deck.getId(), n, removed.size(), dryRun, groups);
+    }
+
+    // Signs the cards that have no stored signature, splitting the deck in halves down to LEAF_SIZE
+    private final class SignTask extends RecursiveAction {
+        private final List<Flashcard> cards;
+        private final int[][] signatures;
+        private final int from;
+        private final int to;
+
+        SignTask(List<Flashcard> cards, int[][] signatures, int from, int to) {
+            this.cards = cards;
+            this.signatures = signatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    Flashcard card = cards.get(i);
+                    int[] stored = MinHash.fromBytes(card.getMinhash());
+                    signatures[i] = stored != null ? stored
+                            : MinHash.signature(cardBodyService.fullFront(card), cardBodyService.fullBack(card));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SignTask(cards, signatures, from, middle), new SignTask(cards, signatures, middle, to));
+        }
+    }
+
+    // This node applies its own writes to the index as they commit; another node's writes drop
+    // the scope, which is rebuilt on next use
+    @Override
+    public void invalidate(Invalidation invalidation, boolean remote) {
+        if (!remote) {
+            return;
+        }
+        String scope = switch (invalidation.kind()) {
+            case USER_CARDS -> "user:" + invalidation.id();
+            case DECK_CARDS -> "deck:" + invalidation.id();
+            default -> null;
+        };
+        if (scope != null) {
+            synchronized (scopes) {
+                scopes.remove(scope);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (scopes) {
+            scopes.clear();
+        }
+    }
+
+    // Card writes already publish the deck's cards; an owner's scope spans all of their decks
+    private void publishScope(Deck deck) {
+        if (deck.getUserId() != null) {
+            invalidationBus.publish(Invalidation.Kind.USER_CARDS, deck.getUserId());
+        }
+    }
+
+    // Decks without an owner form a scope of their own
+    private static String scopeOf(Deck deck) {
+        return deck.getUserId() != null ? "user:" + deck.getUserId() : "deck:" + deck.getId();
+    }
+
+    private ScopeIndex scopeIndex(Deck deck) {
+        String scope = scopeOf(deck);
+        ScopeIndex cached = cachedScope(scope);
+        if (cached != null) {
+            return cached;
+        }
+        // Cards committed while this loads may be missed until the next rebuild; flags are advisory
+        ScopeIndex loaded = new ScopeIndex();
+        List<FlashcardRepository.CardSignature> rows = deck.getUserId() != null
+                ? shardRouter.fanOut(() -> flashcardRepository.findSignaturesByUserId(deck.getUserId()))
+                : shardRouter.forDeck(deck.getId(), () -> flashcardRepository.findSignaturesByDeckId(deck.getId()));
+        for (FlashcardRepository.CardSignature row : rows) {
+            int[] signature = MinHash.fromBytes(row.getMinhash());
+            if (signature == null) {
+                String front = row.getFrontHash() == null ? row.getFront()
+                        : cardBodyService.findBody(row.getFrontHash()).orElse(row.getFront());
+                String back = row.getBackHash() == null ? row.getBack()
+                        : cardBodyService.findBody(row.getBackHash()).orElse(row.getBack());
+                signature = MinHash.signature(front, back);
+            }
+            loaded.add(row.getId(), row.getDeckId(), signature);
+        }
+        synchronized (scopes) {
+            scopes.put(scope, loaded);
+        }
+        return loaded;
+    }
+
+    private ScopeIndex cachedScope(String scope) {
+        synchronized (scopes) {
+            ScopeIndex index = scopes.get(scope);
+            if (index != null && System.currentTimeMillis() - index.loadedAt > indexTtlMs) {
+                scopes.remove(scope);
+                return null;
+            }
+            return index;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
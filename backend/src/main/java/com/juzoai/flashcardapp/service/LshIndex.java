@@ -0,0 +1,74 @@
+package com.juzoai.flashcardapp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Locality-sensitive hash index over MinHash signatures. A lookup only compares the cards
+// that share a band with the query, so its cost depends on the number of near matches rather
+// than on the number of cards indexed. Not thread-safe; callers synchronize.
+public final class LshIndex {
+
+    public record Match(Long cardId, Long deckId, double similarity) {
+    }
+
+    private record Entry(Long deckId, int[] signature) {
+    }
+
+    private final Map<Long, Entry> cards = new HashMap<>();
+    private final Map<Long, List<Long>> buckets = new HashMap<>();
+
+    public void add(Long cardId, Long deckId, int[] signature) {
+        remove(cardId);
+        cards.put(cardId, new Entry(deckId, signature));
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            buckets.computeIfAbsent(MinHash.bandKey(signature, band), key -> new ArrayList<>(1)).add(cardId);
+        }
+    }
+
+    public void remove(Long cardId) {
+        Entry entry = cards.remove(cardId);
+        if (entry == null) {
+            return;
+        }
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            long key = MinHash.bandKey(entry.signature(), band);
+            List<Long> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(cardId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return cards.size();
+    }
+
+    // Indexed cards whose estimated similarity to the signature is at least the threshold, most similar first
+    public List<Match> find(int[] signature, double threshold) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            List<Long> bucket = buckets.get(MinHash.bandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        List<Match> matches = new ArrayList<>();
+        for (Long cardId : candidates) {
+            Entry entry = cards.get(cardId);
+            double similarity = MinHash.similarity(signature, entry.signature());
+            if (similarity >= threshold) {
+                matches.add(new Match(cardId, entry.deckId(), similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparing(Match::cardId));
+        return matches;
+    }
+}
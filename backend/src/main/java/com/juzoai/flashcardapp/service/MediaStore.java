@@ -0,0 +1,185 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.repository.CardAttachmentRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Content-addressed media files on local disk, stored once per SHA-256 under root/ab/cd/<hash>.
+// Uploads are streamed through a small buffer into a temporary file while being hashed and then
+// renamed into place, so a file is never held in memory and a partial upload is never visible.
+// Files are never modified after they are written, which is what lets them be cached forever.
+@Slf4j
+@Service
+public class MediaStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String UPLOAD_SUFFIX = ".upload";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public record StoredBlob(String hash, long size) {
+    }
+
+    public static class BlobTooLargeException extends RuntimeException {
+        public BlobTooLargeException(long maxBytes) {
+            super("Media files can be at most " + maxBytes + " bytes");
+        }
+    }
+
+    private final CardAttachmentRepository cardAttachmentRepository;
+    private final ShardRouter shardRouter;
+    private final Path root;
+    private final long maxBytes;
+    private final long gcIntervalMs;
+    private final long gcGraceMs;
+
+    private final ScheduledExecutorService collector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "media-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MediaStore(CardAttachmentRepository cardAttachmentRepository, ShardRouter shardRouter,
+                      @Value("${app.media.root:${java.io.tmpdir}/flashcard-media}") String root,
+                      @Value("${app.media.max-bytes:52428800}") long maxBytes,
+                      @Value("${app.media.gc-interval-ms:3600000}") long gcIntervalMs,
+                      @Value("${app.media.gc-grace-ms:86400000}") long gcGraceMs) throws IOException {
+        this.cardAttachmentRepository = cardAttachmentRepository;
+        this.shardRouter = shardRouter;
+        this.root = Files.createDirectories(Path.of(root)).toAbsolutePath();
+        this.maxBytes = maxBytes;
+        this.gcIntervalMs = gcIntervalMs;
+        this.gcGraceMs = gcGraceMs;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public StoredBlob store(InputStream in) throws IOException {
+        Path temp = Files.createTempFile(root, "blob-", UPLOAD_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new BlobTooLargeException(maxBytes);
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+                out.force(false);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            if (Files.exists(target)) {
+                // Already stored for another card; refreshing the time keeps it out of a collection in progress
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredBlob(hash, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Optional<Path> find(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Deletes files that no card references and that are older than the grace period, which
+    // covers uploads whose attachment row is not committed yet. Returns the number deleted.
+    public int collectGarbage() {
+        Set<String> referenced = new HashSet<>(shardRouter.fanOut(cardAttachmentRepository::findAllHashes));
+        long cutoff = System.currentTimeMillis() - gcGraceMs;
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                boolean collectable = name.endsWith(UPLOAD_SUFFIX)
+                        || (HASH.matcher(name).matches() && !referenced.contains(name));
+                if (collectable && Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (deleted > 0) {
+            log.info("Removed {} unreferenced media files", deleted);
+        }
+        return deleted;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startCollector() {
+        if (gcIntervalMs > 0) {
+            collector.scheduleWithFixedDelay(this::collect, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopCollector() {
+        collector.shutdownNow();
+    }
+
+    private void collect() {
+        try {
+            collectGarbage();
+        } catch (RuntimeException e) {
+            log.warn("Media garbage collection failed: {}", e.getMessage());
+        }
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.juzoai.flashcardapp.service;
+
+import java.nio.ByteBuffer;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// MinHash signatures of card text. The share of equal positions in two signatures estimates
+// the Jaccard similarity of the cards' character 3-gram sets, so cards that differ only in
+// case, punctuation, whitespace or a few words get close signatures. Signatures are split
+// into bands for locality-sensitive hashing: two cards sharing any band are candidates.
+public final class MinHash {
+
+    public static final int PERMUTATIONS = 64;
+    public static final int BANDS = 16;
+    public static final int ROWS = PERMUTATIONS / BANDS;
+
+    private static final int SHINGLE = 3;
+
+    // Fixed so that signatures stored in the database stay comparable across restarts
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(PERMUTATIONS).toArray();
+
+    private MinHash() {
+    }
+
+    public static int[] signature(String front, String back) {
+        String text = normalize(front) + " | " + normalize(back);
+        int[] signature = new int[PERMUTATIONS];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, text.length() - SHINGLE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = hash(text, start, Math.min(text.length(), start + SHINGLE));
+            for (int i = 0; i < PERMUTATIONS; i++) {
+                int value = (int) mix(shingle ^ SEEDS[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < PERMUTATIONS; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / PERMUTATIONS;
+    }
+
+    // Distinct per band, so all bands can share one hash table
+    public static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = mix(key * 31 + signature[i]);
+        }
+        return key;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(PERMUTATIONS * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != PERMUTATIONS * Integer.BYTES) {
+            return null;
+        }
+        int[] signature = new int[PERMUTATIONS];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    // Lower case letters and digits separated by single spaces
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int end = normalized.length();
+        return space && end > 0 ? normalized.substring(0, end - 1) : normalized.toString();
+    }
+
+    private static long hash(String text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
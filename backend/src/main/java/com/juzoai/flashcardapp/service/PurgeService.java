@@ -0,0 +1,300 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationBus;
+import com.juzoai.flashcardapp.model.PurgeJob;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.PurgeJobRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Deleting a deck or a user only marks the row and records a purge job. The job removes the
+// data in the background with range deletes of at most chunk-size cards, pausing between
+// chunks, so no transaction holds many row locks or loads cards into memory. Clones of a
+// purged deck are detached from it in chunks of the same size first. Jobs are stored
+// next to the data they purge and leased while they run: a job interrupted by a restart is
+// picked up again once its lease expires, and every step can safely run twice.
+@Slf4j
+@Service
+public class PurgeService {
+
+    private final ShardRouter shardRouter;
+    private final PurgeJobRepository purgeJobRepository;
+    private final DeckRepository deckRepository;
+    private final UserRepository userRepository;
+    private final DeckCloneService deckCloneService;
+    private final InvalidationBus invalidationBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "purge-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public PurgeService(ShardRouter shardRouter, PurgeJobRepository purgeJobRepository,
+                        DeckRepository deckRepository, UserRepository userRepository,
+                        DeckCloneService deckCloneService, InvalidationBus invalidationBus,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.purge.chunk-size:1000}") int chunkSize,
+                        @Value("${app.purge.pause-ms:50}") long pauseMs,
+                        @Value("${app.purge.poll-interval-ms:5000}") long pollIntervalMs,
+                        @Value("${app.purge.lease-ms:60000}") long leaseMs) {
+        this.shardRouter = shardRouter;
+        this.purgeJobRepository = purgeJobRepository;
+        this.deckRepository = deckRepository;
+        this.userRepository = userRepository;
+        this.deckCloneService = deckCloneService;
+        this.invalidationBus = invalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+    }
+
+    // The job is stored on the deck's shard in the same transaction that hides the deck
+    public Optional<PurgeJob> deleteDeck(Long deckId) {
+        return shardRouter.forDeck(deckId, () -> transaction.execute(status -> {
+            if (deckRepository.softDelete(deckId) == 0) {
+                return Optional.<PurgeJob>empty();
+            }
+            invalidationBus.publish(Invalidation.Kind.DECK, deckId);
+            return Optional.of(purgeJobRepository.save(new PurgeJob(PurgeJob.Target.DECK, deckId)));
+        }));
+    }
+
+    public Optional<PurgeJob> deleteUser(Long userId) {
+        Optional<PurgeJob> job = shardRouter.onHome(() -> transaction.execute(status -> {
+            if (userRepository.softDelete(userId) == 0) {
+                return Optional.<PurgeJob>empty();
+            }
+            invalidationBus.publish(Invalidation.Kind.USER, userId);
+            invalidationBus.publish(Invalidation.Kind.USER_CARDS, userId);
+            return Optional.of(purgeJobRepository.save(new PurgeJob(PurgeJob.Target.USER, userId)));
+        }));
+        // The user's decks may be on any shard; the job hides them again if this is interrupted
+        job.ifPresent(j -> hideDecksOfUser(userId));
+        return job;
+    }
+
+    public Optional<PurgeJob> findDeckJob(Long deckId) {
+        return shardRouter.forDeck(deckId, () ->
+                purgeJobRepository.findByTargetTypeAndTargetId(PurgeJob.Target.DECK, deckId));
+    }
+
+    public Optional<PurgeJob> findUserJob(Long userId) {
+        return shardRouter.onHome(() ->
+                purgeJobRepository.findByTargetTypeAndTargetId(PurgeJob.Target.USER, userId));
+    }
+
+    // Runs every job that is not finished or leased by another instance; returns how many completed
+    public int runPendingJobs() {
+        int completed = 0;
+        for (String shard : shardRouter.shardNames()) {
+            Optional<Long> jobId;
+            while (running && (jobId = claimNext(shard)).isPresent()) {
+                if (run(shard, jobId.get())) {
+                    completed++;
+                }
+            }
+        }
+        return completed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startWorker() {
+        if (pollIntervalMs > 0) {
+            worker.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        // An interrupted job keeps its progress and is resumed after its lease expires
+        running = false;
+        worker.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            runPendingJobs();
+        } catch (RuntimeException e) {
+            log.warn("Purge worker failed: {}", e.getMessage());
+        }
+    }
+
+    private Optional<Long> claimNext(String shard) {
+        return shardRouter.onShard(shard, () -> transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> candidates = jdbcTemplate.queryForList(
+                    "SELECT id FROM purge_jobs WHERE status <> 'DONE' AND (lease_until IS NULL OR lease_until < ?) "
+                            + "ORDER BY id LIMIT 10", Long.class, now);
+            for (Long id : candidates) {
+                int claimed = jdbcTemplate.update(
+                        "UPDATE purge_jobs SET status = 'RUNNING', lease_until = ?, updated_at = ? "
+                                + "WHERE id = ? AND status <> 'DONE' AND (lease_until IS NULL OR lease_until < ?)",
+                        leaseEnd(now), now, id, now);
+                if (claimed == 1) {
+                    return Optional.of(id);
+                }
+            }
+            return Optional.<Long>empty();
+        }));
+    }
+
+    private boolean run(String shard, Long jobId) {
+        PurgeJob job = shardRouter.onShard(shard, () -> purgeJobRepository.findById(jobId)).orElse(null);
+        if (job == null) {
+            return false;
+        }
+        try {
+            boolean finished = job.getTargetType() == PurgeJob.Target.DECK
+                    ? purgeDeck(shard, job.getTargetId(), shard, jobId)
+                    : purgeUser(job.getTargetId(), shard, jobId);
+            if (finished) {
+                LocalDateTime now = LocalDateTime.now();
+                shardRouter.onShard(shard, () -> jdbcTemplate.update(
+                        "UPDATE purge_jobs SET status = 'DONE', lease_until = NULL, last_error = NULL, "
+                                + "finished_at = ?, updated_at = ? WHERE id = ?", now, now, jobId));
+                log.info("Purged {} {}", job.getTargetType(), job.getTargetId());
+            }
+            return finished;
+        } catch (RuntimeException e) {
+            // Keep the lease so the job is retried on a later poll rather than in a tight loop
+            log.warn("Purge of {} {} failed: {}", job.getTargetType(), job.getTargetId(), e.getMessage());
+            String message = String.valueOf(e.getMessage());
+            shardRouter.onShard(shard, () -> jdbcTemplate.update(
+                    "UPDATE purge_jobs SET last_error = ?, updated_at = ? WHERE id = ?",
+                    message.substring(0, Math.min(message.length(), 1000)), LocalDateTime.now(), jobId));
+            return false;
+        }
+    }
+
+    private boolean purgeUser(Long userId, String jobShard, Long jobId) {
+        hideDecksOfUser(userId);
+        for (String shard : shardRouter.shardNames()) {
+            List<Long> deckIds = shardRouter.onShard(shard, () -> jdbcTemplate.queryForList(
+                    "SELECT id FROM decks WHERE user_id = ? AND deleted_at IS NOT NULL ORDER BY id", Long.class, userId));
+            for (Long deckId : deckIds) {
+                if (!purgeDeck(shard, deckId, jobShard, jobId)) {
+                    return false;
+                }
+            }
+        }
+        // Copies of the user row made for decks on other shards go too; quiz stats cascade with the home row
+        shardRouter.forgetUser(userId);
+        for (String shard : shardRouter.shardNames()) {
+            shardRouter.onShard(shard, () -> jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId));
+        }
+        return true;
+    }
+
+    private boolean purgeDeck(String shard, Long deckId, String jobShard, Long jobId) {
+        // Clones read through to this deck's cards, so they get their own copies before any card goes
+        boolean detached = inChunks(shard, () -> {
+            int count = deckCloneService.detachClonesStep(deckId, chunkSize);
+            recordProgress(jobShard, jobId, 0, 0);
+            return count;
+        });
+        boolean emptied = detached && inChunks(shard, () -> {
+            int count = deleteCardChunk(deckId);
+            recordProgress(jobShard, jobId, count, 0);
+            return count;
+        });
+        if (!emptied) {
+            return false;
+        }
+
+        shardRouter.onShard(shard, () -> transaction.execute(status -> {
+            int count = jdbcTemplate.update("DELETE FROM decks WHERE id = ? AND deleted_at IS NOT NULL", deckId);
+            recordProgress(jobShard, jobId, 0, count);
+            return null;
+        }));
+        shardRouter.forgetDeck(deckId);
+        return true;
+    }
+
+    // Runs the chunk in its own transaction until it reports no more work; false if the job was stopped
+    private boolean inChunks(String shard, Supplier<Integer> chunk) {
+        int done;
+        do {
+            if (!running || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            done = shardRouter.onShard(shard, () -> transaction.execute(status -> chunk.get()));
+            if (done > 0 && !pause()) {
+                return false;
+            }
+        } while (done > 0);
+        return true;
+    }
+
+    // Deletes the next chunk as one range on the (deck_id, id) index
+    private int deleteCardChunk(Long deckId) {
+        List<Long> bound = jdbcTemplate.queryForList(
+                "SELECT id FROM flashcards WHERE deck_id = ? ORDER BY id LIMIT 1 OFFSET ?",
+                Long.class, deckId, chunkSize - 1);
+        if (bound.isEmpty()) {
+            return jdbcTemplate.update("DELETE FROM flashcards WHERE deck_id = ?", deckId);
+        }
+        return jdbcTemplate.update("DELETE FROM flashcards WHERE deck_id = ? AND id <= ?", deckId, bound.get(0));
+    }
+
+    // Also renews the lease, so a job keeps its owner for as long as it makes progress
+    private void recordProgress(String shard, Long jobId, int cards, int decks) {
+        LocalDateTime now = LocalDateTime.now();
+        shardRouter.onShard(shard, () -> jdbcTemplate.update(
+                "UPDATE purge_jobs SET cards_deleted = cards_deleted + ?, decks_deleted = decks_deleted + ?, "
+                        + "lease_until = ?, updated_at = ? WHERE id = ?",
+                cards, decks, leaseEnd(now), now, jobId));
+    }
+
+    private int hideDecksOfUser(Long userId) {
+        return shardRouter.fanOut(() -> List.of(deckRepository.softDeleteByUserId(userId))).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private LocalDateTime leaseEnd(LocalDateTime now) {
+        return now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs));
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.juzoai.flashcardapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The quiz questions and practice problems, loaded once at startup into flat arrays indexed
+// by position; questions are also bucketed by topic so a topic can be sampled directly
+@Component
+public class QuizBank {
+
+    public record PracticeProblem(int id, String title, String difficulty, Integer submissions, Integer successRate,
+                                  Integer likes, String path, String category, boolean isBlind75, boolean implemented) {
+    }
+
+    private final String[] topics;
+    private final int[][] questionsByTopic;
+    private final int[] questionIds;
+    private final int[] topicOfQuestion;
+    private final String[] questionTexts;
+    private final String[][] options;
+    private final int[] correctAnswers;
+    private final Map<Integer, Integer> indexById;
+    private final List<PracticeProblem> problems;
+
+    public QuizBank(ObjectMapper objectMapper) {
+        JsonNode bank = read(objectMapper, "quiz/dsa-questions.json").get("topics");
+        int total = 0;
+        for (JsonNode topic : bank) {
+            total += topic.get("questions").size();
+        }
+
+        topics = new String[bank.size()];
+        questionsByTopic = new int[bank.size()][];
+        questionIds = new int[total];
+        topicOfQuestion = new int[total];
+        questionTexts = new String[total];
+        options = new String[total][];
+        correctAnswers = new int[total];
+        Map<Integer, Integer> ids = new HashMap<>();
+
+        int index = 0;
+        for (int t = 0; t < bank.size(); t++) {
+            JsonNode topic = bank.get(t);
+            topics[t] = topic.get("name").asText();
+            JsonNode questions = topic.get("questions");
+            questionsByTopic[t] = new int[questions.size()];
+            for (int q = 0; q < questions.size(); q++, index++) {
+                JsonNode question = questions.get(q);
+                questionIds[index] = question.get("id").asInt();
+                topicOfQuestion[index] = t;
+                questionTexts[index] = question.get("question").asText();
+                options[index] = objectMapper.convertValue(question.get("options"), String[].class);
+                correctAnswers[index] = question.get("correctAnswer").asInt();
+                questionsByTopic[t][q] = index;
+                if (ids.put(questionIds[index], index) != null) {
+                    throw new IllegalStateException("Duplicate quiz question id " + questionIds[index]);
+                }
+            }
+        }
+        indexById = Map.copyOf(ids);
+
+        List<PracticeProblem> loaded = new ArrayList<>();
+        for (JsonNode problem : read(objectMapper, "quiz/practice-problems.json").get("problems")) {
+            loaded.add(objectMapper.convertValue(problem, PracticeProblem.class));
+        }
+        problems = List.copyOf(loaded);
+    }
+
+    public int topicCount() {
+        return topics.length;
+    }
+
+    public String topic(int topic) {
+        return topics[topic];
+    }
+
+    public int topicIndex(String name) {
+        for (int t = 0; t < topics.length; t++) {
+            if (topics[t].equals(name)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    public int[] questionsInTopic(int topic) {
+        return questionsByTopic[topic];
+    }
+
+    public int questionCount() {
+        return questionIds.length;
+    }
+
+    public int indexOf(int questionId) {
+        return indexById.getOrDefault(questionId, -1);
+    }
+
+    public int questionId(int question) {
+        return questionIds[question];
+    }
+
+    public int topicOf(int question) {
+        return topicOfQuestion[question];
+    }
+
+    public String questionText(int question) {
+        return questionTexts[question];
+    }
+
+    public List<String> options(int question) {
+        return List.of(options[question]);
+    }
+
+    public int correctAnswer(int question) {
+        return correctAnswers[question];
+    }
+
+    public List<PracticeProblem> problems() {
+        return problems;
+    }
+
+    private static JsonNode read(ObjectMapper objectMapper, String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + path, e);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.model.QuizTopicStat;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.QuizTopicStatRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+// Serves quiz questions weighted towards each learner's weak topics. Every learner keeps a
+// small alias table over the topics, rebuilt when an answer changes a topic's weight, so a
+// question is drawn in O(1) without scanning the bank. Recently served questions are skipped.
+@Service
+public class QuizService {
+
+    private static final double INITIAL_WEAKNESS = 0.5;
+    private static final double LEARNING_RATE = 0.3;
+    // Topics the learner has mastered still come up now and then
+    private static final double MIN_WEIGHT = 0.1;
+    private static final int MAX_REDRAWS = 8;
+
+    private final QuizBank quizBank;
+    private final QuizTopicStatRepository quizTopicStatRepository;
+    private final UserRepository userRepository;
+    private final int noRepeatWindow;
+    private final int maxLearners;
+
+    private final LinkedHashMap<String, Learner> learners = new LinkedHashMap<>(64, 0.75f, true);
+
+    public record QuestionView(int id, String topic, String question, List<String> options) {
+    }
+
+    public record AnswerResult(int questionId, boolean correct, int correctAnswer, double topicWeakness) {
+    }
+
+    public record TopicView(String name, int questionCount, double weakness, int answered, int correct) {
+    }
+
+    public QuizService(QuizBank quizBank, QuizTopicStatRepository quizTopicStatRepository,
+                       UserRepository userRepository,
+                       @Value("${app.quiz.no-repeat-window:10}") int noRepeatWindow,
+                       @Value("${app.quiz.max-learners:10000}") int maxLearners) {
+        this.quizBank = quizBank;
+        this.quizTopicStatRepository = quizTopicStatRepository;
+        this.userRepository = userRepository;
+        this.noRepeatWindow = noRepeatWindow;
+        this.maxLearners = maxLearners;
+    }
+
+    public List<TopicView> topics(String username, String session) {
+        Learner learner = learner(username, session);
+        List<TopicView> topics = new ArrayList<>();
+        synchronized (learner) {
+            for (int t = 0; t < quizBank.topicCount(); t++) {
+                topics.add(new TopicView(quizBank.topic(t), quizBank.questionsInTopic(t).length,
+                        learner.weakness[t], learner.answered[t], learner.correct[t]));
+            }
+        }
+        return topics;
+    }
+
+    // Without a topic the draw adapts to the learner's weak topics; an unknown topic is empty
+    public Optional<QuestionView> nextQuestion(String username, String session, String topic) {
+        int topicIndex = topic == null ? -1 : quizBank.topicIndex(topic);
+        if (topic != null && topicIndex < 0) {
+            return Optional.empty();
+        }
+
+        Learner learner = learner(username, session);
+        RandomGenerator random = ThreadLocalRandom.current();
+        int question;
+        synchronized (learner) {
+            question = topicIndex >= 0 ? drawFromTopic(learner, topicIndex, random) : drawAdaptive(learner, random);
+            learner.recentQuestions.add(question);
+        }
+        return Optional.of(new QuestionView(quizBank.questionId(question), quizBank.topic(quizBank.topicOf(question)),
+                quizBank.questionText(question), quizBank.options(question)));
+    }
+
+    public Optional<AnswerResult> answer(String username, String session, int questionId, int selectedAnswer) {
+        int question = quizBank.indexOf(questionId);
+        if (question < 0) {
+            return Optional.empty();
+        }
+
+        Learner learner = learner(username, session);
+        int topic = quizBank.topicOf(question);
+        boolean correct = selectedAnswer == quizBank.correctAnswer(question);
+        double weakness;
+        int answered;
+        int correctAnswers;
+        synchronized (learner) {
+            learner.weakness[topic] += LEARNING_RATE * ((correct ? 0.0 : 1.0) - learner.weakness[topic]);
+            weakness = learner.weakness[topic];
+            learner.answered[topic]++;
+            if (correct) {
+                learner.correct[topic]++;
+            }
+            learner.rebuildTopicTable();
+            answered = learner.answered[topic];
+            correctAnswers = learner.correct[topic];
+        }
+        if (learner.userId != null) {
+            saveStat(learner.userId, quizBank.topic(topic), weakness, answered, correctAnswers);
+        }
+        return Optional.of(new AnswerResult(questionId, correct, quizBank.correctAnswer(question), weakness));
+    }
+
+    public List<QuizBank.PracticeProblem> problems() {
+        return quizBank.problems();
+    }
+
+    // Picks a practice problem matching the filters, avoiding the learner's recent picks
+    public Optional<QuizBank.PracticeProblem> spinProblem(String username, String session,
+                                                          String difficulty, String category, boolean blind75Only) {
+        List<QuizBank.PracticeProblem> problems = quizBank.problems();
+        List<Integer> matching = new ArrayList<>();
+        for (int i = 0; i < problems.size(); i++) {
+            QuizBank.PracticeProblem problem = problems.get(i);
+            if (problem.implemented()
+                    && (difficulty == null || difficulty.equals(problem.difficulty()))
+                    && (category == null || category.equals(problem.category()))
+                    && (!blind75Only || problem.isBlind75())) {
+                matching.add(i);
+            }
+        }
+        if (matching.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Learner learner = learner(username, session);
+        RandomGenerator random = ThreadLocalRandom.current();
+        synchronized (learner) {
+            int window = Math.min(noRepeatWindow, matching.size() - 1);
+            List<Integer> fresh = new ArrayList<>();
+            for (int candidate : matching) {
+                if (!learner.recentProblems.contains(candidate, window)) {
+                    fresh.add(candidate);
+                }
+            }
+            int picked = fresh.get(random.nextInt(fresh.size()));
+            learner.recentProblems.add(picked);
+            return Optional.of(problems.get(picked));
+        }
+    }
+
+    // Upserts the topic's row outside the learner's lock. Concurrent answers may write in any
+    // order, so a row only takes a write that counts more answers than it already has.
+    private void saveStat(Long userId, String topic, double weakness, int answered, int correct) {
+        if (quizTopicStatRepository.updateIfNewer(userId, topic, weakness, answered, correct) > 0) {
+            return;
+        }
+        try {
+            quizTopicStatRepository.insertIfAbsent(userId, topic, weakness, answered, correct);
+        } catch (DataIntegrityViolationException e) {
+            // Another answer inserted the row first
+            quizTopicStatRepository.updateIfNewer(userId, topic, weakness, answered, correct);
+        }
+    }
+
+    private int drawFromTopic(Learner learner, int topic, RandomGenerator random) {
+        int[] questions = quizBank.questionsInTopic(topic);
+        int window = Math.min(noRepeatWindow, questions.length - 1);
+        for (int attempt = 0; attempt < MAX_REDRAWS; attempt++) {
+            int question = questions[random.nextInt(questions.length)];
+            if (!learner.recentQuestions.contains(question, window)) {
+                return question;
+            }
+        }
+        // Small topics: walk the bucket from a random start to the first question not seen recently
+        int start = random.nextInt(questions.length);
+        for (int i = 0; i < questions.length; i++) {
+            int question = questions[(start + i) % questions.length];
+            if (!learner.recentQuestions.contains(question, window)) {
+                return question;
+            }
+        }
+        return questions[start];
+    }
+
+    private int drawAdaptive(Learner learner, RandomGenerator random) {
+        int window = Math.min(noRepeatWindow, quizBank.questionCount() - 1);
+        for (int attempt = 0; attempt < MAX_REDRAWS; attempt++) {
+            int[] questions = quizBank.questionsInTopic(learner.topicTable.sample(random));
+            int question = questions[random.nextInt(questions.length)];
+            if (!learner.recentQuestions.contains(question, window)) {
+                return question;
+            }
+        }
+        // The weighted topics are exhausted for now; fall back to any question not seen recently
+        int start = random.nextInt(quizBank.questionCount());
+        for (int i = 0; i < quizBank.questionCount(); i++) {
+            int question = (start + i) % quizBank.questionCount();
+            if (!learner.recentQuestions.contains(question, window)) {
+                return question;
+            }
+        }
+        return start;
+    }
+
+    // Signed-in learners are keyed by username and keep their results; anonymous learners are
+    // keyed by a client-generated session id and are only kept in memory
+    private Learner learner(String username, String session) {
+        String key = username != null ? "user:" + username : session != null ? "session:" + session : null;
+        if (key == null) {
+            return newLearner(null);
+        }
+        synchronized (learners) {
+            Learner cached = learners.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Learner learner = newLearner(null);
+        if (username != null) {
+            Long userId = userRepository.findByUsername(username).map(User::getId).orElse(null);
+            learner = newLearner(userId);
+            if (userId != null) {
+                for (QuizTopicStat stat : quizTopicStatRepository.findByUserId(userId)) {
+                    int topic = quizBank.topicIndex(stat.getTopic());
+                    if (topic >= 0) {
+                        learner.weakness[topic] = stat.getWeakness();
+                        learner.answered[topic] = stat.getAnswered();
+                        learner.correct[topic] = stat.getCorrect();
+                    }
+                }
+                learner.rebuildTopicTable();
+            }
+        }
+
+        synchronized (learners) {
+            Learner existing = learners.putIfAbsent(key, learner);
+            if (learners.size() > maxLearners) {
+                Iterator<Map.Entry<String, Learner>> eldest = learners.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return existing != null ? existing : learner;
+        }
+    }
+
+    private Learner newLearner(Long userId) {
+        Learner learner = new Learner(userId, quizBank.topicCount(), noRepeatWindow);
+        learner.rebuildTopicTable();
+        return learner;
+    }
+
+    private static final class Learner {
+        final Long userId;
+        final double[] weakness;
+        final int[] answered;
+        final int[] correct;
+        final RecentWindow recentQuestions;
+        final RecentWindow recentProblems;
+        AliasTable topicTable;
+
+        Learner(Long userId, int topics, int window) {
+            this.userId = userId;
+            this.weakness = new double[topics];
+            this.answered = new int[topics];
+            this.correct = new int[topics];
+            this.recentQuestions = new RecentWindow(window);
+            this.recentProblems = new RecentWindow(window);
+            Arrays.fill(weakness, INITIAL_WEAKNESS);
+        }
+
+        void rebuildTopicTable() {
+            double[] weights = new double[weakness.length];
+            for (int t = 0; t < weights.length; t++) {
+                weights[t] = MIN_WEIGHT + weakness[t];
+            }
+            topicTable = new AliasTable(weights);
+        }
+    }
+
+    // The last few items served, newest first when searched
+    private static final class RecentWindow {
+        private final int[] items;
+        private int size;
+        private int next;
+
+        RecentWindow(int capacity) {
+            this.items = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int item) {
+            items[next] = item;
+            next = (next + 1) % items.length;
+            size = Math.min(size + 1, items.length);
+        }
+
+        boolean contains(int item, int window) {
+            int checked = Math.min(window, size);
+            for (int i = 1; i <= checked; i++) {
+                if (items[Math.floorMod(next - i, items.length)] == item) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
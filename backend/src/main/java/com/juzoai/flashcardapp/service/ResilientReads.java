@@ -0,0 +1,318 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationListener;
+import com.juzoai.flashcardapp.replication.ReadYourWrites;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Keeps deck reads answering while the database is slow or failing. Every successful read
+// leaves a snapshot of its result in a bounded local cache. A read with a snapshot waits for
+// the database only up to the latency budget; past that it gets the snapshot, marked stale,
+// and the load finishes in the background to refresh it. A read without a snapshot waits as
+// long and then fails as unavailable, so no request thread hangs on a slow database. Reads of the same key share one
+// refresh, so a burst on a hot deck takes one refresh thread. A circuit breaker tracks
+// database failures and slow calls across all reads; while it is open, reads get their
+// snapshot without touching the database, or fail fast when there is none. Reads are
+// coalesced with SingleFlight, so the results must be immutable DTOs.
+@Slf4j
+@Service
+public class ResilientReads implements InvalidationListener {
+
+    public record Read<T>(T value, boolean stale, long ageMs) {
+
+        // Age on snapshot answers; fresh ones carry none
+        public HttpHeaders headers() {
+            HttpHeaders headers = new HttpHeaders();
+            if (stale) {
+                headers.set(HttpHeaders.AGE, Long.toString(TimeUnit.MILLISECONDS.toSeconds(ageMs)));
+            }
+            return headers;
+        }
+    }
+
+    // The database cannot answer and there is no snapshot to fall back on
+    public static class UnavailableException extends RuntimeException {
+        private final long retryAfterMs;
+
+        public UnavailableException(long retryAfterMs, Throwable cause) {
+            super("The database is unavailable", cause);
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public long getRetryAfterSeconds() {
+            return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMs + 999));
+        }
+    }
+
+    private record Snapshot(Object value, long loadedAt) {
+    }
+
+    private final SingleFlight singleFlight;
+    private final CircuitBreaker breaker;
+    private final boolean enabled;
+    private final long latencyBudgetMs;
+    private final long maxStalenessMs;
+    private final ThreadPoolExecutor refresher;
+
+    private final LinkedHashMap<String, Snapshot> snapshots;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> refreshes = new ConcurrentHashMap<>();
+
+    private final LongAdder fresh = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder unavailable = new LongAdder();
+
+    public ResilientReads(SingleFlight singleFlight,
+                          @Value("${app.resilience.enabled:true}") boolean enabled,
+                          @Value("${app.resilience.latency-budget-ms:250}") long latencyBudgetMs,
+                          @Value("${app.resilience.snapshot-entries:10000}") int snapshotEntries,
+                          @Value("${app.resilience.max-staleness-ms:3600000}") long maxStalenessMs,
+                          @Value("${app.resilience.refresh-threads:4}") int refreshThreads,
+                          @Value("${app.resilience.breaker-window:50}") int breakerWindow,
+                          @Value("${app.resilience.breaker-minimum-calls:20}") int breakerMinimumCalls,
+                          @Value("${app.resilience.breaker-failure-rate:0.5}") double breakerFailureRate,
+                          @Value("${app.resilience.breaker-slow-call-rate:0.8}") double breakerSlowCallRate,
+                          @Value("${app.resilience.breaker-open-ms:5000}") long breakerOpenMs) {
+        this.singleFlight = singleFlight;
+        this.enabled = enabled;
+        this.latencyBudgetMs = latencyBudgetMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.breaker = new CircuitBreaker(breakerWindow, breakerMinimumCalls, breakerFailureRate,
+                breakerSlowCallRate, latencyBudgetMs, breakerOpenMs);
+        AtomicInteger threads = new AtomicInteger();
+        // No queue: a refresh waiting behind other decks' refreshes would spend the budget of a
+        // healthy read, so when every thread is busy the caller runs the refresh itself
+        this.refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread thread = new Thread(r, "read-refresh-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.snapshots = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > snapshotEntries;
+            }
+        };
+    }
+
+    public <T> Read<T> read(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return new Read<>(singleFlight.load(key, loader), false, 0);
+        }
+        Snapshot snapshot = snapshot(key);
+        if (!breaker.tryAcquire()) {
+            if (snapshot != null) {
+                return stale(snapshot);
+            }
+            unavailable.increment();
+            throw new UnavailableException(breaker.retryAfterMs(), null);
+        }
+        // Without a snapshot the read still waits only up to the budget, and then fails fast
+        // while the load carries on in the background to leave one for the next read
+        try {
+            @SuppressWarnings("unchecked")
+            T value = (T) refresh(key, loader).get(latencyBudgetMs, TimeUnit.MILLISECONDS);
+            fresh.increment();
+            return new Read<>(value, false, 0);
+        } catch (TimeoutException e) {
+            return staleOrUnavailable(snapshot, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnavailableException unavailableCause) {
+                return staleOrUnavailable(snapshot, unavailableCause);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return staleOrUnavailable(snapshot, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(breaker.getStats());
+        stats.put("fresh", fresh.sum());
+        stats.put("stale", stale.sum());
+        stats.put("refreshesJoined", joined.sum());
+        stats.put("refreshesInline", inline.sum());
+        stats.put("unavailable", unavailable.sum());
+        stats.put("refreshesRunning", refresher.getActiveCount());
+        synchronized (snapshots) {
+            stats.put("snapshots", snapshots.size());
+        }
+        return stats;
+    }
+
+    CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    // A write known to change an entry removes its snapshot, so a deleted or edited deck is not
+    // brought back from it
+    @Override
+    public void invalidate(Invalidation invalidation, boolean remote) {
+        switch (invalidation.kind()) {
+            case DECK -> remove("deck:" + invalidation.id(), "deck-cards:" + invalidation.id(), "decks");
+            case DECK_CARDS -> remove("deck-cards:" + invalidation.id());
+            case USER, USER_DECKS -> remove("user-decks:" + invalidation.id());
+            default -> {
+            }
+        }
+    }
+
+    // Snapshots are only ever served marked stale, so lost invalidations do not call for a flush
+    @Override
+    public void invalidateAll() {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // The refresh runs on a refresh thread so that its callers can stop waiting after the budget.
+    // Callers of the same key join the refresh in flight and give back their breaker permit.
+    // When every refresh thread is busy the caller runs it itself and waits for it in full; while
+    // the database is slow those loads are slow calls that open the breaker.
+    private <T> CompletableFuture<Object> refresh(String key, Supplier<T> loader) {
+        boolean pinned = ReadYourWrites.isPinned();
+        // A client reading its own write must not join a refresh that reads a replica
+        String refreshKey = pinned ? key + "@primary" : key;
+        CompletableFuture<Object> started = new CompletableFuture<>();
+        CompletableFuture<Object> running = refreshes.putIfAbsent(refreshKey, started);
+        if (running != null) {
+            breaker.release();
+            joined.increment();
+            return running;
+        }
+        try {
+            refresher.execute(() -> complete(refreshKey, started, () -> loadPinned(key, loader, pinned)));
+        } catch (RejectedExecutionException e) {
+            // The caller's own pin already applies here
+            inline.increment();
+            complete(refreshKey, started, () -> load(key, loader));
+        }
+        return started;
+    }
+
+    private void complete(String refreshKey, CompletableFuture<Object> refresh, Supplier<?> load) {
+        Object value = null;
+        Throwable failure = null;
+        try {
+            value = load.get();
+        } catch (Throwable e) {
+            failure = e;
+        }
+        // Leave the map first, so a caller woken by this refresh starts a new one on its next read
+        refreshes.remove(refreshKey, refresh);
+        if (failure != null) {
+            refresh.completeExceptionally(failure);
+        } else {
+            refresh.complete(value);
+        }
+    }
+
+    private <T> T loadPinned(String key, Supplier<T> loader, boolean pinned) {
+        if (!pinned) {
+            return load(key, loader);
+        }
+        ReadYourWrites.pin();
+        try {
+            return load(key, loader);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private <T> T load(String key, Supplier<T> loader) {
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = singleFlight.load(key, loader);
+        } catch (RuntimeException e) {
+            if (!isDatabaseFailure(e)) {
+                breaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                throw e;
+            }
+            breaker.onFailure();
+            log.warn("Read of {} failed: {}", key, e.getMessage());
+            throw new UnavailableException(breaker.retryAfterMs(), e);
+        }
+        breaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        synchronized (snapshots) {
+            snapshots.put(key, new Snapshot(value, System.currentTimeMillis()));
+        }
+        return value;
+    }
+
+    private <T> Read<T> staleOrUnavailable(Snapshot snapshot, Throwable cause) {
+        if (snapshot != null) {
+            return stale(snapshot);
+        }
+        if (cause instanceof UnavailableException failure) {
+            throw failure;
+        }
+        unavailable.increment();
+        throw new UnavailableException(breaker.retryAfterMs(), cause);
+    }
+
+    private <T> Read<T> stale(Snapshot snapshot) {
+        stale.increment();
+        @SuppressWarnings("unchecked")
+        T value = (T) snapshot.value();
+        return new Read<>(value, true, System.currentTimeMillis() - snapshot.loadedAt());
+    }
+
+    private Snapshot snapshot(String key) {
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(key);
+            if (snapshot != null && System.currentTimeMillis() - snapshot.loadedAt() > maxStalenessMs) {
+                snapshots.remove(key);
+                return null;
+            }
+            return snapshot;
+        }
+    }
+
+    private void remove(String... keys) {
+        synchronized (snapshots) {
+            for (String key : keys) {
+                snapshots.remove(key);
+            }
+        }
+    }
+
+    private static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessException || cause instanceof TransactionException
+                    || cause instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
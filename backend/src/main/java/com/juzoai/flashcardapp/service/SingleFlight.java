@@ -0,0 +1,137 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.replication.ReadYourWrites;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Coalesces concurrent identical reads: the first caller for a key runs the load and every
+// caller that arrives while it is in flight waits for the same result instead of querying
+// again. Nothing is kept once the load finishes, so this never serves data older than a
+// read that was already running. Loads run in their own read-only transaction, which lets
+// waiting callers hold no connection; results are shared between threads and must be
+// immutable DTOs rather than entities.
+@Service
+public class SingleFlight {
+
+    private record Flight(CompletableFuture<Object> result, long deadline) {
+    }
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long timeoutNanos;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(PlatformTransactionManager transactionManager,
+                        @Value("${app.coalescing.enabled:true}") boolean enabled,
+                        @Value("${app.coalescing.timeout-ms:2000}") long timeoutMs) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public <T> T load(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return run(loader);
+        }
+        // A client reading its own write is on the primary and must not join a replica read
+        String flightKey = ReadYourWrites.isPinned() ? key + "@primary" : key;
+        while (true) {
+            Flight current = flights.get(flightKey);
+            if (current == null) {
+                Flight mine = new Flight(new CompletableFuture<>(), System.nanoTime() + timeoutNanos);
+                current = flights.putIfAbsent(flightKey, mine);
+                if (current == null) {
+                    return lead(flightKey, mine, loader);
+                }
+            }
+            long remaining = current.deadline() - System.nanoTime();
+            if (remaining > 0) {
+                return follow(current, remaining, loader);
+            }
+            // The load has run past its timeout; later callers start a fresh one instead of piling up on it
+            Flight mine = new Flight(new CompletableFuture<>(), System.nanoTime() + timeoutNanos);
+            if (flights.replace(flightKey, current, mine)) {
+                return lead(flightKey, mine, loader);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long loadCount = loads.sum();
+        long joinedCount = joined.sum();
+        long requests = loadCount + joinedCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests);
+        stats.put("loads", loadCount);
+        stats.put("joined", joinedCount);
+        stats.put("timeouts", timeouts.sum());
+        stats.put("failures", failures.sum());
+        stats.put("inFlight", flights.size());
+        // Share of requests that were answered by another request's load
+        stats.put("coalescingRatio", requests == 0 ? 0.0 : (double) joinedCount / requests);
+        return stats;
+    }
+
+    private <T> T lead(String key, Flight flight, Supplier<T> loader) {
+        loads.increment();
+        try {
+            T value = run(loader);
+            flight.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T follow(Flight flight, long remainingNanos, Supplier<T> loader) {
+        try {
+            T value = (T) flight.result().get(remainingNanos, TimeUnit.NANOSECONDS);
+            joined.increment();
+            return value;
+        } catch (TimeoutException e) {
+            // The leader is stuck; this caller does not wait any longer and loads for itself
+            timeouts.increment();
+            loads.increment();
+            return run(loader);
+        } catch (ExecutionException e) {
+            joined.increment();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced read", e);
+        }
+    }
+
+    private <T> T run(Supplier<T> loader) {
+        return readOnlyTransaction.execute(status -> loader.get());
+    }
+}
@@ -0,0 +1,531 @@
+package com.juzoai.flashcardapp.service;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationListener;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Type-ahead over deck titles and card fronts. Each owner's decks and cards are in a
+// SuggestionTrie of their own and decks without an owner share a public one; a lookup merges
+// the user's trie with the public one. A deck's popularity is how many times it has been
+// cloned, and its cards share it. Controllers report their writes as they commit, writes on
+// other instances arrive as invalidations, and the whole index is rebuilt at startup, with
+// the owners' tries built in parallel, and again every rebuild-interval-ms.
+@Slf4j
+@Service
+public class SuggestService implements InvalidationListener {
+
+    // Decks without an owner; user ids start at 1
+    private static final long PUBLIC = 0;
+    // Text is indexed from the start of each of its first words, up to a bounded key length
+    private static final int MAX_WORDS = 6;
+    private static final int MAX_KEY_LENGTH = 48;
+
+    private record DeckEntry(long scope, String title, Long sourceDeckId) {
+    }
+
+    private record CardEntry(long deckId, String front) {
+    }
+
+    // Not thread-safe; guarded by the service's lock
+    private final class Index {
+        private final Map<Long, SuggestionTrie> tries = new HashMap<>();
+        private final Map<Long, DeckEntry> decks = new HashMap<>();
+        private final Map<Long, CardEntry> cards = new HashMap<>();
+        private final Map<Long, Set<Long>> deckCards = new HashMap<>();
+        private final Map<Long, Integer> clones = new HashMap<>();
+
+        void putDeck(long deckId, Long ownerId, String title, Long sourceDeckId) {
+            long scope = ownerId != null ? ownerId : PUBLIC;
+            DeckEntry existing = decks.get(deckId);
+            Set<Long> cardIds = deckCards.getOrDefault(deckId, Set.of());
+            if (existing != null) {
+                unindex(existing.scope(), existing.title(), deckSuggestion(deckId, existing));
+                if (existing.scope() != scope) {
+                    cardIds.forEach(cardId -> unindexCard(cardId, existing.scope()));
+                }
+            }
+            DeckEntry entry = new DeckEntry(scope, title, sourceDeckId);
+            decks.put(deckId, entry);
+            index(scope, title, deckSuggestion(deckId, entry));
+            if (existing != null && existing.scope() != scope) {
+                cardIds.forEach(cardId -> indexCard(cardId, scope));
+            }
+            Long previousSource = existing != null ? existing.sourceDeckId() : null;
+            if (sourceDeckId != null && !sourceDeckId.equals(previousSource)) {
+                addClones(sourceDeckId, 1);
+            }
+            if (previousSource != null && !previousSource.equals(sourceDeckId)) {
+                addClones(previousSource, -1);
+            }
+        }
+
+        void removeDeck(long deckId) {
+            DeckEntry entry = decks.remove(deckId);
+            if (entry == null) {
+                return;
+            }
+            unindex(entry.scope(), entry.title(), deckSuggestion(deckId, entry));
+            for (Long cardId : deckCards.getOrDefault(deckId, Set.of())) {
+                unindexCard(cardId, entry.scope());
+                cards.remove(cardId);
+            }
+            deckCards.remove(deckId);
+            if (entry.sourceDeckId() != null) {
+                addClones(entry.sourceDeckId(), -1);
+            }
+        }
+
+        void removeOwner(long ownerId) {
+            List<Long> owned = decks.entrySet().stream()
+                    .filter(deck -> deck.getValue().scope() == ownerId)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            owned.forEach(this::removeDeck);
+            tries.remove(ownerId);
+        }
+
+        void putCard(long cardId, long deckId, String front) {
+            DeckEntry deck = decks.get(deckId);
+            if (deck == null) {
+                return;
+            }
+            removeCard(cardId);
+            cards.put(cardId, new CardEntry(deckId, front));
+            deckCards.computeIfAbsent(deckId, id -> new HashSet<>()).add(cardId);
+            indexCard(cardId, deck.scope());
+        }
+
+        void removeCard(long cardId) {
+            CardEntry card = cards.get(cardId);
+            if (card == null) {
+                return;
+            }
+            DeckEntry deck = decks.get(card.deckId());
+            if (deck != null) {
+                unindexCard(cardId, deck.scope());
+            }
+            cards.remove(cardId);
+            Set<Long> siblings = deckCards.get(card.deckId());
+            if (siblings != null) {
+                siblings.remove(cardId);
+            }
+        }
+
+        void replaceCards(long deckId, List<FlashcardRepository.CardFront> rows) {
+            new ArrayList<>(deckCards.getOrDefault(deckId, Set.of())).forEach(this::removeCard);
+            rows.forEach(row -> putCard(row.getId(), deckId, row.getFront()));
+        }
+
+        boolean ownsCard(long deckId, long cardId) {
+            CardEntry card = cards.get(cardId);
+            return card != null && card.deckId() == deckId;
+        }
+
+        // A deck's and its cards' entries are keyed by identity, so they are re-added with the new score
+        private void addClones(long deckId, int delta) {
+            clones.merge(deckId, delta, Integer::sum);
+            DeckEntry deck = decks.get(deckId);
+            if (deck == null) {
+                return;
+            }
+            SuggestionTrie.Suggestion suggestion = deckSuggestion(deckId, deck);
+            unindex(deck.scope(), deck.title(), suggestion);
+            index(deck.scope(), deck.title(), suggestion);
+            for (Long cardId : deckCards.getOrDefault(deckId, Set.of())) {
+                unindexCard(cardId, deck.scope());
+                indexCard(cardId, deck.scope());
+            }
+        }
+
+        private SuggestionTrie.Suggestion deckSuggestion(long deckId, DeckEntry deck) {
+            return new SuggestionTrie.Suggestion(SuggestionTrie.Type.DECK, deckId, deckId, deck.title(),
+                    clones.getOrDefault(deckId, 0));
+        }
+
+        private SuggestionTrie.Suggestion cardSuggestion(long cardId, CardEntry card) {
+            return new SuggestionTrie.Suggestion(SuggestionTrie.Type.CARD, cardId, card.deckId(), card.front(),
+                    clones.getOrDefault(card.deckId(), 0));
+        }
+
+        private void indexCard(long cardId, long scope) {
+            CardEntry card = cards.get(cardId);
+            index(scope, card.front(), cardSuggestion(cardId, card));
+        }
+
+        private void unindexCard(long cardId, long scope) {
+            CardEntry card = cards.get(cardId);
+            unindex(scope, card.front(), cardSuggestion(cardId, card));
+        }
+
+        private void index(long scope, String text, SuggestionTrie.Suggestion suggestion) {
+            SuggestionTrie trie = tries.computeIfAbsent(scope, s -> new SuggestionTrie(topK));
+            keys(text).forEach(key -> trie.add(key, suggestion));
+        }
+
+        private void unindex(long scope, String text, SuggestionTrie.Suggestion suggestion) {
+            SuggestionTrie trie = tries.get(scope);
+            if (trie == null) {
+                return;
+            }
+            keys(text).forEach(key -> trie.remove(key, suggestion));
+            if (trie.size() == 0) {
+                tries.remove(scope);
+            }
+        }
+
+        // Only reads the maps, so the tries of different owners can be built at the same time
+        private SuggestionTrie buildTrie(List<Long> deckIds) {
+            SuggestionTrie trie = new SuggestionTrie(topK);
+            for (Long deckId : deckIds) {
+                DeckEntry deck = decks.get(deckId);
+                SuggestionTrie.Suggestion deckSuggestion = deckSuggestion(deckId, deck);
+                keys(deck.title()).forEach(key -> trie.add(key, deckSuggestion));
+                for (Long cardId : deckCards.getOrDefault(deckId, Set.of())) {
+                    CardEntry card = cards.get(cardId);
+                    SuggestionTrie.Suggestion cardSuggestion = cardSuggestion(cardId, card);
+                    keys(card.front()).forEach(key -> trie.add(key, cardSuggestion));
+                }
+            }
+            return trie;
+        }
+    }
+
+    private final DeckRepository deckRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final ShardRouter shardRouter;
+    private final int topK;
+    private final long rebuildIntervalMs;
+    private final ForkJoinPool pool;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Changes applied while a rebuild loads, replayed onto the new index before it replaces the old one
+    private List<Consumer<Index>> journal;
+    private long lastRebuildMs;
+    private final LongAdder lookups = new LongAdder();
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "suggest-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SuggestService(DeckRepository deckRepository, FlashcardRepository flashcardRepository,
+                          ShardRouter shardRouter,
+                          @Value("${app.suggest.top-k:10}") int topK,
+                          @Value("${app.suggest.rebuild-interval-ms:3600000}") long rebuildIntervalMs,
+                          @Value("${app.suggest.parallelism:0}") int parallelism) {
+        this.deckRepository = deckRepository;
+        this.flashcardRepository = flashcardRepository;
+        this.shardRouter = shardRouter;
+        this.topK = topK;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    // The best matches for a prefix of any word near the start of a deck title or card front,
+    // among the user's decks and the public ones
+    public List<SuggestionTrie.Suggestion> suggest(String query, Long userId, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (prefix.length() > MAX_KEY_LENGTH) {
+            prefix = prefix.substring(0, MAX_KEY_LENGTH);
+        }
+        lookups.increment();
+        List<SuggestionTrie.Suggestion> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (userId != null && userId != PUBLIC) {
+                top(userId, prefix, candidates);
+            }
+            top(PUBLIC, prefix, candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        candidates.sort(SuggestionTrie.RANKING);
+        return List.copyOf(candidates.subList(0, Math.min(Math.min(limit, topK), candidates.size())));
+    }
+
+    public void deckSaved(Deck deck) {
+        long deckId = deck.getId();
+        // The column is only filled in once the deck has been read back
+        Long ownerId = deck.getUser() != null ? deck.getUser().getId() : deck.getUserId();
+        String title = deck.getTitle();
+        Long sourceDeckId = deck.getSourceDeckId();
+        afterCommit(() -> apply(index -> index.putDeck(deckId, ownerId, title, sourceDeckId)));
+    }
+
+    public void deckRemoved(Long deckId) {
+        afterCommit(() -> apply(index -> index.removeDeck(deckId)));
+    }
+
+    public void ownerRemoved(Long userId) {
+        afterCommit(() -> apply(index -> index.removeOwner(userId)));
+    }
+
+    public void cardSaved(Flashcard card) {
+        long cardId = card.getId();
+        long deckId = card.getDeck().getId();
+        String front = card.getFront();
+        boolean deleted = card.isDeleted();
+        afterCommit(() -> apply(index -> {
+            if (deleted) {
+                index.removeCard(cardId);
+            } else {
+                index.putCard(cardId, deckId, front);
+            }
+        }));
+    }
+
+    // Deleting an inherited card of a clone only hides it there; the source deck keeps suggesting it
+    public void cardRemoved(Long deckId, Long cardId) {
+        afterCommit(() -> apply(index -> {
+            if (index.ownsCard(deckId, cardId)) {
+                index.removeCard(cardId);
+            }
+        }));
+    }
+
+    // Loads every deck and card and swaps in a new index; writes applied meanwhile are replayed onto it
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index built;
+        try {
+            built = build(shardRouter.fanOut(deckRepository::findAllTitles),
+                    shardRouter.fanOut(flashcardRepository::findAllFronts));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            journal.forEach(change -> change.accept(built));
+            journal = null;
+            index = built;
+            lastRebuildMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggestion index rebuilt: {} decks, {} cards in {} ms",
+                built.decks.size(), built.cards.size(), lastRebuildMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("scopes", index.tries.size());
+            stats.put("decks", index.decks.size());
+            stats.put("cards", index.cards.size());
+            stats.put("lastRebuildMs", lastRebuildMs);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("lookups", lookups.sum());
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        rebuilder.execute(this::rebuildQuietly);
+        if (rebuildIntervalMs > 0) {
+            rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMs, rebuildIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+        reloader.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    // This node applies its own writes as they commit; another node's writes reload the deck.
+    // Decks hidden with their deleted owner are only dropped by the next rebuild.
+    @Override
+    public void invalidate(Invalidation invalidation, boolean remote) {
+        if (remote && (invalidation.kind() == Invalidation.Kind.DECK
+                || invalidation.kind() == Invalidation.Kind.DECK_CARDS)) {
+            reloader.execute(() -> reloadDeck(invalidation.id()));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        rebuilder.execute(this::rebuildQuietly);
+    }
+
+    // Lowercase words of letters and digits separated by single spaces
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    // The normalized text from the start of each of its first words, cut to the key length
+    static Set<String> keys(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        int from = 0;
+        for (int word = 0; word < MAX_WORDS && from < normalized.length(); word++) {
+            keys.add(normalized.substring(from, Math.min(normalized.length(), from + MAX_KEY_LENGTH)));
+            int next = normalized.indexOf(' ', from);
+            if (next < 0) {
+                break;
+            }
+            from = next + 1;
+        }
+        return keys;
+    }
+
+    private Index build(List<DeckRepository.DeckTitle> deckRows, List<FlashcardRepository.CardFront> cardRows) {
+        Index built = new Index();
+        Map<Long, List<Long>> decksByScope = new HashMap<>();
+        for (DeckRepository.DeckTitle row : deckRows) {
+            long scope = row.getUserId() != null ? row.getUserId() : PUBLIC;
+            built.decks.put(row.getId(), new DeckEntry(scope, row.getTitle(), row.getSourceDeckId()));
+            decksByScope.computeIfAbsent(scope, s -> new ArrayList<>()).add(row.getId());
+            if (row.getSourceDeckId() != null) {
+                built.clones.merge(row.getSourceDeckId(), 1, Integer::sum);
+            }
+        }
+        for (FlashcardRepository.CardFront row : cardRows) {
+            if (built.decks.containsKey(row.getDeckId())) {
+                built.cards.put(row.getId(), new CardEntry(row.getDeckId(), row.getFront()));
+                built.deckCards.computeIfAbsent(row.getDeckId(), id -> new HashSet<>()).add(row.getId());
+            }
+        }
+        Map<Long, SuggestionTrie> tries = pool.submit(() -> decksByScope.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, scope -> built.buildTrie(scope.getValue())))).join();
+        built.tries.putAll(tries);
+        return built;
+    }
+
+    private void reloadDeck(long deckId) {
+        try {
+            Optional<Deck> deck = shardRouter.forDeck(deckId, () -> deckRepository.findById(deckId));
+            List<FlashcardRepository.CardFront> fronts = deck.isEmpty() ? List.of()
+                    : shardRouter.forDeck(deckId, () -> flashcardRepository.findFrontsByDeckId(deckId));
+            apply(index -> {
+                if (deck.isEmpty()) {
+                    index.removeDeck(deckId);
+                    return;
+                }
+                index.putDeck(deckId, deck.get().getUserId(), deck.get().getTitle(), deck.get().getSourceDeckId());
+                index.replaceCards(deckId, fronts);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Suggestions for deck {} could not be reloaded: {}", deckId, e.getMessage());
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Suggestion index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void top(long scope, String prefix, List<SuggestionTrie.Suggestion> into) {
+        SuggestionTrie trie = index.tries.get(scope);
+        if (trie != null) {
+            into.addAll(trie.top(prefix));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
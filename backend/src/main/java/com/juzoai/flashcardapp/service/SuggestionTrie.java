@@ -0,0 +1,180 @@
+package com.juzoai.flashcardapp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compressed prefix trie from normalized text to suggestions. Every node keeps the best k
+// suggestions of its subtree, so a lookup walks the prefix and copies one list: its cost
+// depends on the length of the prefix, not on how much text is indexed. A suggestion may be
+// stored under several keys; adding or removing one recomputes the lists on its keys' paths.
+// Not thread-safe; callers synchronize.
+public final class SuggestionTrie {
+
+    public enum Type {
+        DECK, CARD
+    }
+
+    // Identity is the type and id; popularity and text are only compared for ranking
+    public record Suggestion(Type type, long id, long deckId, String text, int popularity) {
+
+        boolean sameAs(Suggestion other) {
+            return type == other.type && id == other.id;
+        }
+    }
+
+    // Most popular first, decks before cards, then shorter text
+    public static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt(Suggestion::popularity).reversed()
+            .thenComparing(Suggestion::type)
+            .thenComparingInt(suggestion -> suggestion.text().length())
+            .thenComparing(Suggestion::text)
+            .thenComparingLong(Suggestion::id);
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(2);
+        private final List<Suggestion> here = new ArrayList<>(1);
+        private List<Suggestion> top = List.of();
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final int k;
+    private final Node root = new Node("");
+    private int size;
+
+    public SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    public void add(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.children.get(key.charAt(at));
+            if (child == null) {
+                child = new Node(key.substring(at));
+                node.children.put(key.charAt(at), child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, key, at);
+            if (common < child.label.length()) {
+                // Split the edge where the key leaves it
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top = child.top;
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            at += common;
+        }
+        node.here.add(suggestion);
+        size++;
+        recompute(path);
+    }
+
+    public void remove(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.children.get(key.charAt(at));
+            if (child == null || !key.startsWith(child.label, at)) {
+                return;
+            }
+            node = child;
+            path.add(node);
+            at += child.label.length();
+        }
+        if (!node.here.removeIf(suggestion::sameAs)) {
+            return;
+        }
+        size--;
+        prune(path);
+        recompute(path);
+    }
+
+    // The best suggestions stored under keys that start with the prefix
+    public List<Suggestion> top(String prefix) {
+        Node node = root;
+        int at = 0;
+        while (at < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(at));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, at);
+            if (at + common < prefix.length() && common < child.label.length()) {
+                return List.of();
+            }
+            node = child;
+            at += common;
+        }
+        return node.top;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Drops nodes left without suggestions or children and merges single-child nodes into their parent edge
+    private static void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.here.isEmpty() && node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                path.remove(i);
+            } else if (node.here.isEmpty() && node.children.size() == 1) {
+                Node child = node.children.values().iterator().next();
+                child.label = node.label + child.label;
+                parent.children.put(child.label.charAt(0), child);
+                path.set(i, child);
+            }
+        }
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Suggestion> candidates = new ArrayList<>(node.here);
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+            candidates.sort(RANKING);
+            List<Suggestion> top = new ArrayList<>(Math.min(k, candidates.size()));
+            for (Suggestion candidate : candidates) {
+                if (top.size() == k) {
+                    break;
+                }
+                // The same suggestion may arrive through more than one key
+                if (top.stream().noneMatch(candidate::sameAs)) {
+                    top.add(candidate);
+                }
+            }
+            node.top = List.copyOf(top);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+}
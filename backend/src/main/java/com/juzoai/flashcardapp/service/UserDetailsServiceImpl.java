@@ -2,29 +2,43 @@ package com.juzoai.flashcardapp.service;
 
 import com.juzoai.flashcardapp.model.User;
 import com.juzoai.flashcardapp.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final Set<String> adminUsernames;
+
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  @Value("${app.admin.usernames:}") List<String> adminUsernames) {
+        this.userRepository = userRepository;
+        this.adminUsernames = Set.copyOf(adminUsernames.stream().map(String::trim).filter(name -> !name.isEmpty()).toList());
+    }
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (adminUsernames.contains(user.getUsername())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
-                new ArrayList<>()
+                authorities
         );
     }
 } 
\ No newline at end of file
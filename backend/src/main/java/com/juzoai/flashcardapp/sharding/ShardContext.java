@@ -0,0 +1,24 @@
+package com.juzoai.flashcardapp.sharding;
+
+// The shard the current thread's next connection should come from; null means the home shard
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static String set(String shard) {
+        String previous = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+}
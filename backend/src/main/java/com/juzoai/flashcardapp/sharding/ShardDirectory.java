@@ -0,0 +1,133 @@
+package com.juzoai.flashcardapp.sharding;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Placement overrides written by the rebalancer. Users default to their ring position and
+// decks to the shard encoded in their id; only moved users and decks are listed here, so
+// the whole directory stays small enough to keep in memory on every node. A move on another
+// node is picked up as soon as its invalidation arrives, or on the next scheduled refresh.
+@Slf4j
+public class ShardDirectory implements AutoCloseable, InvalidationListener {
+
+    private final ShardTopology topology;
+    private final JdbcTemplate homeJdbc;
+    private final TransactionTemplate homeTransaction;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Map<Long, String> userShards = Map.of();
+    private volatile Map<Long, String> deckShards = Map.of();
+
+    public ShardDirectory(ShardTopology topology, long refreshMs) {
+        this.topology = topology;
+        this.homeJdbc = new JdbcTemplate(topology.getDataSources().get(topology.home()));
+        this.homeTransaction = new TransactionTemplate(new DataSourceTransactionManager(homeJdbc.getDataSource()));
+        reload();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "shard-directory-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    public String shardForUser(Long userId) {
+        if (userId == null) {
+            return topology.home();
+        }
+        String moved = userShards.get(userId);
+        return moved != null ? moved : topology.ringShardFor(userId);
+    }
+
+    public String shardForDeck(Long deckId) {
+        String moved = deckShards.get(deckId);
+        return moved != null ? moved : topology.originOf(deckId);
+    }
+
+    public void assignUser(Long userId, String shard) {
+        homeTransaction.executeWithoutResult(status -> {
+            homeJdbc.update("DELETE FROM shard_assignments WHERE user_id = ?", userId);
+            homeJdbc.update("INSERT INTO shard_assignments (user_id, shard) VALUES (?, ?)", userId, shard);
+        });
+        userShards = copyWith(userShards, userId, shard);
+    }
+
+    public void relocateDeck(Long deckId, String shard) {
+        homeTransaction.executeWithoutResult(status -> {
+            homeJdbc.update("DELETE FROM deck_relocations WHERE deck_id = ?", deckId);
+            if (!shard.equals(topology.originOf(deckId))) {
+                homeJdbc.update("INSERT INTO deck_relocations (deck_id, shard) VALUES (?, ?)", deckId, shard);
+            }
+        });
+        deckShards = copyWith(deckShards, deckId, shard);
+    }
+
+    public void removeUser(Long userId) {
+        homeJdbc.update("DELETE FROM shard_assignments WHERE user_id = ?", userId);
+        userShards = copyWithout(userShards, userId);
+    }
+
+    public void removeDeck(Long deckId) {
+        homeJdbc.update("DELETE FROM deck_relocations WHERE deck_id = ?", deckId);
+        deckShards = copyWithout(deckShards, deckId);
+    }
+
+    public void reload() {
+        Map<Long, String> users = new ConcurrentHashMap<>();
+        homeJdbc.query("SELECT user_id, shard FROM shard_assignments",
+                rs -> { users.put(rs.getLong(1), rs.getString(2)); });
+        Map<Long, String> decks = new ConcurrentHashMap<>();
+        homeJdbc.query("SELECT deck_id, shard FROM deck_relocations",
+                rs -> { decks.put(rs.getLong(1), rs.getString(2)); });
+        userShards = users;
+        deckShards = decks;
+    }
+
+    @Override
+    public void invalidate(Invalidation invalidation, boolean remote) {
+        if (remote && invalidation.kind() == Invalidation.Kind.SHARD_DIRECTORY) {
+            refresh();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        refresh();
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Keep serving from the last loaded directory; the next refresh will retry
+            log.warn("Could not reload the shard directory: {}", e.getMessage());
+        }
+    }
+
+    private static Map<Long, String> copyWith(Map<Long, String> current, Long key, String value) {
+        Map<Long, String> copy = new ConcurrentHashMap<>(current);
+        copy.put(key, value);
+        return copy;
+    }
+
+    private static Map<Long, String> copyWithout(Map<Long, String> current, Long key) {
+        Map<Long, String> copy = new ConcurrentHashMap<>(current);
+        copy.remove(key);
+        return copy;
+    }
+}
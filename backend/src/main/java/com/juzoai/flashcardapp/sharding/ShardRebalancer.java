@@ -0,0 +1,181 @@
+package com.juzoai.flashcardapp.sharding;
+
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+import com.juzoai.flashcardapp.invalidation.InvalidationBus;
+import com.juzoai.flashcardapp.model.CardAttachment;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.CardAttachmentRepository;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Moves a user's decks to another shard while the application keeps serving traffic.
+// Decks are moved one at a time. The deck row stays locked on the old shard until its rows
+// are gone there, so writes to the deck from any instance wait only while that deck is being
+// copied and then follow it. The new placement is recorded before the old rows are removed,
+// so a move that is interrupted can simply be run again.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    private final ShardRouter shardRouter;
+    private final DeckRepository deckRepository;
+    private final DeckCloneService deckCloneService;
+    private final CardAttachmentRepository cardAttachmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InvalidationBus invalidationBus;
+
+    public record MoveResult(Long userId, String shard, int decksMoved, int cardsMoved) {
+    }
+
+    private record DeckLocation(Long deckId, String shard) {
+    }
+
+    private record CardRow(Long id, String front, String back, String frontHash, String backHash, byte[] minhash,
+                           List<CardAttachment> attachments) {
+    }
+
+    private record DeckSnapshot(Deck deck, List<CardRow> cards) {
+    }
+
+    public MoveResult moveUser(Long userId, String target) {
+        ShardDirectory directory = shardRouter.directory();
+        if (!shardRouter.topology().contains(target)) {
+            throw new IllegalArgumentException("Unknown shard: " + target);
+        }
+
+        // Start from the placements other nodes may have recorded
+        directory.reload();
+
+        // New decks for the user go to the target from here on
+        directory.assignUser(userId, target);
+        invalidationBus.publish(Invalidation.Kind.SHARD_DIRECTORY, 0);
+
+        // A user's clones of other users' decks live with those decks, so look everywhere.
+        // Deleted decks stay where their purge job is.
+        List<DeckLocation> decks = new ArrayList<>();
+        for (String shard : shardRouter.topology().getNames()) {
+            List<Long> ids = shardRouter.onShard(shard, () -> jdbcTemplate.queryForList(
+                    "SELECT id FROM decks WHERE user_id = ? AND deleted_at IS NULL", Long.class, userId));
+            for (Long id : ids) {
+                // Rows left behind by an interrupted move are not authoritative; the rerun removes them
+                if (shard.equals(directory.shardForDeck(id)) || shard.equals(target)) {
+                    decks.add(new DeckLocation(id, shard));
+                } else {
+                    shardRouter.onShard(shard, () -> deleteDeckRows(id));
+                }
+            }
+        }
+
+        int decksMoved = 0;
+        int cardsMoved = 0;
+        for (DeckLocation location : decks) {
+            if (!location.shard().equals(target)) {
+                cardsMoved += moveDeck(userId, location.deckId(), location.shard(), target);
+                decksMoved++;
+            }
+        }
+        log.info("Moved {} decks and {} cards of user {} to shard {}", decksMoved, cardsMoved, userId, target);
+        return new MoveResult(userId, target, decksMoved, cardsMoved);
+    }
+
+    // One transaction on the source shard holds the deck row's lock from the snapshot until its
+    // rows are deleted; the copy on the target and the new placement commit before that
+    private int moveDeck(Long userId, Long deckId, String source, String target) {
+        return shardRouter.onShard(source, () -> {
+            if (!shardRouter.lockDeck(deckId)) {
+                return 0;
+            }
+            DeckSnapshot snapshot = snapshot(deckId);
+            if (snapshot == null) {
+                return 0;
+            }
+            shardRouter.onShard(target, () -> {
+                shardRouter.replicateUser(userId);
+                deleteDeckRows(deckId);
+                insertDeck(snapshot);
+                return null;
+            });
+            shardRouter.directory().relocateDeck(deckId, target);
+            invalidationBus.publish(Invalidation.Kind.SHARD_DIRECTORY, 0);
+            deleteDeckRows(deckId);
+            return snapshot.cards().size();
+        });
+    }
+
+    // Clones of the deck stay behind and are detached first; a deck that is itself a clone
+    // is moved as a standalone deck holding its merged view
+    private DeckSnapshot snapshot(Long deckId) {
+        deckCloneService.detachClones(deckId);
+        return deckRepository.findById(deckId).map(deck -> {
+            List<Flashcard> merged = deckCloneService.findCards(deck);
+            Map<Long, List<CardAttachment>> attachments = cardAttachmentRepository
+                    .findByFlashcardIdIn(merged.stream().map(Flashcard::getId).toList()).stream()
+                    .collect(Collectors.groupingBy(CardAttachment::getFlashcardId));
+            List<CardRow> cards = new ArrayList<>();
+            for (Flashcard card : merged) {
+                Long id = card.getDeck().getId().equals(deckId) ? card.getId() : null;
+                cards.add(new CardRow(id, card.getFront(), card.getBack(), card.getFrontHash(), card.getBackHash(),
+                        card.getMinhash(), attachments.getOrDefault(card.getId(), List.of())));
+            }
+            return new DeckSnapshot(deck, cards);
+        }).orElse(null);
+    }
+
+    private void insertDeck(DeckSnapshot snapshot) {
+        Deck deck = snapshot.deck();
+        Long userId = deck.getUser() != null ? deck.getUser().getId() : null;
+        jdbcTemplate.update("INSERT INTO decks (id, title, description, user_id, card_count) VALUES (?, ?, ?, ?, ?)",
+                deck.getId(), deck.getTitle(), deck.getDescription(), userId, snapshot.cards().size());
+        for (CardRow card : snapshot.cards()) {
+            Long cardId = card.id();
+            if (cardId != null) {
+                jdbcTemplate.update("INSERT INTO flashcards (id, deck_id, front, back, front_hash, back_hash, minhash, deleted) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, FALSE)",
+                        cardId, deck.getId(), card.front(), card.back(), card.frontHash(), card.backHash(), card.minhash());
+            } else {
+                KeyHolder key = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "INSERT INTO flashcards (deck_id, front, back, front_hash, back_hash, minhash, deleted) "
+                                    + "VALUES (?, ?, ?, ?, ?, ?, FALSE)", new String[] {"id"});
+                    statement.setLong(1, deck.getId());
+                    statement.setString(2, card.front());
+                    statement.setString(3, card.back());
+                    statement.setString(4, card.frontHash());
+                    statement.setString(5, card.backHash());
+                    statement.setBytes(6, card.minhash());
+                    return statement;
+                }, key);
+                cardId = key.getKey().longValue();
+            }
+            // Only the rows move; the files are in the shared media store
+            for (CardAttachment attachment : card.attachments()) {
+                jdbcTemplate.update("INSERT INTO card_attachments (flashcard_id, hash, content_type, file_name, size_bytes) "
+                        + "VALUES (?, ?, ?, ?, ?)", cardId, attachment.getHash(), attachment.getContentType(),
+                        attachment.getFileName(), attachment.getSize());
+            }
+        }
+    }
+
+    private Void deleteDeckRows(Long deckId) {
+        jdbcTemplate.update("DELETE FROM flashcards WHERE deck_id = ?", deckId);
+        jdbcTemplate.update("DELETE FROM decks WHERE id = ?", deckId);
+        return null;
+    }
+}
@@ -0,0 +1,236 @@
+package com.juzoai.flashcardapp.sharding;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// Runs repository work on the shard that owns the data. Each routed call gets its own
+// transaction on that shard's pool. With sharding disabled every method simply runs the
+// work in place, so single-database deployments behave exactly as before.
+@Component
+public class ShardRouter {
+
+    // A write that finds its deck gone follows the new placement; a deck moved again meanwhile is tried once more
+    private static final int DECK_ROUTE_ATTEMPTS = 3;
+
+    // Stands in for the single database when sharding is disabled
+    private static final String DEFAULT_SHARD = "default";
+
+    private final ShardTopology topology;
+    private final ShardDirectory directory;
+    private final TransactionTemplate shardTransaction;
+    private final TransactionTemplate readOnlyShardTransaction;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService fanOutPool;
+
+    public ShardRouter(ObjectProvider<ShardTopology> topology, ObjectProvider<ShardDirectory> directory,
+                       PlatformTransactionManager transactionManager, DataSource dataSource) {
+        this.topology = topology.getIfAvailable();
+        this.directory = directory.getIfAvailable();
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        this.shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyShardTransaction = new TransactionTemplate(transactionManager, shardTransaction);
+        this.readOnlyShardTransaction.setReadOnly(true);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fanOutPool = this.topology == null ? null : Executors.newFixedThreadPool(
+                this.topology.getNames().size(), r -> {
+                    Thread thread = new Thread(r, "shard-fan-out");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public boolean isEnabled() {
+        return topology != null;
+    }
+
+    // Every shard in topology order, home first; a single entry when sharding is disabled
+    public List<String> shardNames() {
+        return topology == null ? List.of(DEFAULT_SHARD) : topology.getNames();
+    }
+
+    public <T> T onShard(String shard, Supplier<T> work) {
+        return onShard(shard, TransactionSynchronizationManager.isCurrentTransactionReadOnly(), work);
+    }
+
+    private <T> T onShard(String shard, boolean readOnly, Supplier<T> work) {
+        if (topology == null) {
+            return work.get();
+        }
+        if (!topology.contains(shard)) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        // Already inside a transaction on this shard: join it instead of taking a second connection
+        if (shard.equals(currentShard()) && TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        // Work called from a read-only transaction stays read-only on the shard
+        TransactionTemplate transaction = readOnly ? readOnlyShardTransaction : shardTransaction;
+        String previous = ShardContext.set(shard);
+        try {
+            return transaction.execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    // Users, card bodies and the shard directory live on the home shard
+    public <T> T onHome(Supplier<T> work) {
+        return topology == null ? work.get() : onShard(topology.home(), work);
+    }
+
+    public <T> T forUser(Long userId, Supplier<T> work) {
+        return topology == null ? work.get() : onShard(directory.shardForUser(userId), work);
+    }
+
+    // Clones and their cards live with their source deck, so deck-scoped work never crosses shards.
+    // Writes first lock the deck row on its shard, the fence the rebalancer holds while it moves the
+    // deck. Every instance writes through that row, so a write waits for a move in progress on any
+    // of them; if the deck was moved meanwhile, the row is gone and the write follows the new placement.
+    public <T> T forDeck(Long deckId, Supplier<T> work) {
+        if (topology == null) {
+            return work.get();
+        }
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        for (int attempt = 1; ; attempt++) {
+            String shard = directory.shardForDeck(deckId);
+            boolean mayFollow = attempt < DECK_ROUTE_ATTEMPTS;
+            try {
+                return onShard(shard, readOnly, () -> {
+                    if (!readOnly && !lockDeck(deckId) && mayFollow) {
+                        // Missing decks are looked up again in the directory; a deck that is simply gone stays here
+                        directory.reload();
+                        if (!shard.equals(directory.shardForDeck(deckId))) {
+                            throw new DeckMovedException();
+                        }
+                    }
+                    return work.get();
+                });
+            } catch (DeckMovedException e) {
+                // Rolled back before the work ran; retry on the shard the deck was moved to
+            }
+        }
+    }
+
+    // Cards keep their id when their deck is moved, so look on the shard that issued the id
+    // first and only ask the others if the card is not there
+    public <T> Optional<T> findCard(Long cardId, Supplier<Optional<T>> work) {
+        if (topology == null) {
+            return work.get();
+        }
+        String origin = topology.originOf(cardId);
+        Optional<T> found = onShard(origin, work);
+        if (found.isPresent()) {
+            return found;
+        }
+        List<String> others = new ArrayList<>(topology.getNames());
+        others.remove(origin);
+        return inParallel(others, work).stream().flatMap(Optional::stream).findFirst();
+    }
+
+    // Runs the query on every shard at once and concatenates the results in shard order
+    public <T> List<T> fanOut(Supplier<List<T>> work) {
+        if (topology == null) {
+            return work.get();
+        }
+        List<T> merged = new ArrayList<>();
+        inParallel(topology.getNames(), work).forEach(merged::addAll);
+        return merged;
+    }
+
+    // Copies the user row from the home shard so decks on this shard can reference it.
+    // Replicas carry no credentials; authentication always reads the home shard.
+    public void replicateUser(Long userId) {
+        if (topology == null || userId == null || topology.home().equals(currentShard())) {
+            return;
+        }
+        Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+        if (present != null && present > 0) {
+            return;
+        }
+        List<Map<String, Object>> rows = onHome(() -> jdbcTemplate.queryForList(
+                "SELECT username, email, provider FROM users WHERE id = ?", userId));
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, Object> user = rows.get(0);
+        jdbcTemplate.update("INSERT INTO users (id, username, email, provider) VALUES (?, ?, ?, ?)",
+                userId, user.get("username"), user.get("email"), user.get("provider"));
+    }
+
+    // Drops the placement overrides of purged data so the directory does not grow with deletions
+    public void forgetDeck(Long deckId) {
+        if (topology != null) {
+            directory.removeDeck(deckId);
+        }
+    }
+
+    public void forgetUser(Long userId) {
+        if (topology != null) {
+            directory.removeUser(userId);
+        }
+    }
+
+    // Locks the deck row in the current shard transaction until it ends; false when the deck has no row here
+    boolean lockDeck(Long deckId) {
+        return !jdbcTemplate.queryForList("SELECT id FROM decks WHERE id = ? FOR UPDATE", Long.class, deckId).isEmpty();
+    }
+
+    String currentShard() {
+        String current = ShardContext.current();
+        return current != null ? current : topology.home();
+    }
+
+    ShardTopology topology() {
+        return topology;
+    }
+
+    ShardDirectory directory() {
+        return directory;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (fanOutPool != null) {
+            fanOutPool.shutdownNow();
+        }
+    }
+
+    private <T> List<T> inParallel(List<String> shards, Supplier<T> work) {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (String shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(shard, readOnly, work), fanOutPool));
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class DeckMovedException extends RuntimeException {
+        DeckMovedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.juzoai.flashcardapp.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardTopology topology) {
+        Map<Object, Object> targets = new HashMap<>(topology.getDataSources());
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(topology.getDataSources().get(topology.home()));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        // A null key goes to the home shard; an unknown name is a routing bug and must not fall back
+        return ShardContext.current() == null ? getResolvedDefaultDataSource() : super.determineTargetDataSource();
+    }
+}
@@ -0,0 +1,62 @@
+package com.juzoai.flashcardapp.sharding;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The configured shards, in order. Each shard hands out deck and card ids from its own
+// range, so the shard a row was created on can be read straight from its id.
+public class ShardTopology implements AutoCloseable {
+
+    static final int ID_RANGE_BITS = 40;
+
+    private final List<String> names;
+    private final Map<String, DataSource> dataSources;
+    private final ConsistentHashRing ring;
+
+    public ShardTopology(Map<String, DataSource> dataSources, int virtualNodes) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+        this.names = List.copyOf(dataSources.keySet());
+        this.ring = new ConsistentHashRing(names, virtualNodes);
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    public String home() {
+        return names.get(0);
+    }
+
+    public boolean contains(String shard) {
+        return dataSources.containsKey(shard);
+    }
+
+    public String ringShardFor(long userId) {
+        return ring.nodeFor(userId);
+    }
+
+    public String originOf(long id) {
+        long index = id >>> ID_RANGE_BITS;
+        return index < names.size() ? names.get((int) index) : home();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    long idRangeStart(String shard) {
+        return (long) names.indexOf(shard) << ID_RANGE_BITS;
+    }
+}
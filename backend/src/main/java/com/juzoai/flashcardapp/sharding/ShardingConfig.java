@@ -0,0 +1,96 @@
+package com.juzoai.flashcardapp.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardTopology shardTopology(ShardingProperties properties,
+                                       @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        // An open-in-view session pins one connection for the whole request, which would
+        // send every repository call to whichever shard the request touched first
+        if (openInView) {
+            throw new IllegalStateException("Sharding requires spring.jpa.open-in-view=false");
+        }
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.sharding.shards must list at least one shard");
+        }
+
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shard.getName());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getPoolSize());
+            if (dataSources.put(shard.getName(), dataSource) != null) {
+                throw new IllegalStateException("Duplicate shard name " + shard.getName());
+            }
+        }
+        return new ShardTopology(dataSources, properties.getVirtualNodes());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardTopology topology) {
+        // Bind the physical connection on first use, so a transaction opened before any routing
+        // decision (a read-only controller method, say) does not hold a home shard connection
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(topology));
+    }
+
+    // Boot migrates the primary data source, which is only the home shard; apply the same
+    // migrations to every shard and give each one its own id range
+    @Bean
+    public FlywayMigrationStrategy shardedMigration(ShardTopology topology, ShardingProperties properties) {
+        return flyway -> {
+            for (Map.Entry<String, DataSource> shard : topology.getDataSources().entrySet()) {
+                FluentConfiguration configuration = Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shard.getValue());
+                if (!shard.getKey().equals(topology.home())) {
+                    configuration.locations(properties.getShardLocations().toArray(String[]::new));
+                }
+                configuration.load().migrate();
+                reserveIdRange(new JdbcTemplate(shard.getValue()), topology.idRangeStart(shard.getKey()));
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    @DependsOnDatabaseInitialization
+    public ShardDirectory shardDirectory(ShardTopology topology, ShardingProperties properties) {
+        return new ShardDirectory(topology, properties.getDirectoryRefreshMs());
+    }
+
+    private static void reserveIdRange(JdbcTemplate jdbc, long rangeStart) {
+        if (rangeStart == 0) {
+            return;
+        }
+        for (String table : new String[] {"decks", "flashcards"}) {
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (maxId < rangeStart) {
+                jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (rangeStart + 1));
+            }
+        }
+    }
+}
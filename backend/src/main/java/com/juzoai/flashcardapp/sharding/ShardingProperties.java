@@ -0,0 +1,35 @@
+package com.juzoai.flashcardapp.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Points per shard on the hash ring; more points give a more even spread of users
+    private int virtualNodes = 64;
+
+    // How often each node reloads user and deck placements written by the rebalancer
+    private long directoryRefreshMs = 30000;
+
+    // Migrations for the shards other than home; development seed data only belongs on home
+    private List<String> shardLocations = new ArrayList<>(List.of("classpath:db/migration"));
+
+    // The first shard is the home shard; it holds users, card bodies and the shard directory
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int poolSize = 10;
+    }
+}
@@ -1,4 +1,4 @@
--- Insert sample users (password = 'password')
-INSERT INTO users (username, email, password) 
+-- Sample user for local development (password = 'password')
+INSERT INTO users (username, email, password)
 SELECT 'testuser', 'test@example.com', '$2a$10$ZPfWw.QiRyCCuSZlNkSgRu.4a45r8Nx0T/M1uV2SHsA3gNjxKSs3y'
-WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = 'testuser'); 
\ No newline at end of file
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = 'testuser');
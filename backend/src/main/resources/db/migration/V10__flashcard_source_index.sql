@@ -0,0 +1,2 @@
+-- Detaching the clones of a purged deck: the rows of any deck that override one of its cards
+CREATE INDEX IF NOT EXISTS idx_flashcards_source_card_id ON flashcards (source_card_id);
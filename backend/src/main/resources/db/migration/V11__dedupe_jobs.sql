@@ -0,0 +1,18 @@
+-- Deduplicating every deck runs as a background job on the home shard. Decks are visited in id
+-- order and last_deck_id records how far the job got, so an interrupted job resumes there.
+CREATE TABLE IF NOT EXISTS dedupe_jobs (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  dry_run BOOLEAN NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  decks_scanned BIGINT NOT NULL DEFAULT 0,
+  decks_changed BIGINT NOT NULL DEFAULT 0,
+  cards_removed BIGINT NOT NULL DEFAULT 0,
+  last_deck_id BIGINT,
+  lease_until TIMESTAMP,
+  last_error VARCHAR(1000),
+  created_at TIMESTAMP NOT NULL,
+  updated_at TIMESTAMP NOT NULL,
+  finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_dedupe_jobs_status ON dedupe_jobs (status, id);
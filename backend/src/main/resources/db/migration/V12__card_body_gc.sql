@@ -0,0 +1,4 @@
+-- Card bodies nothing refers to are collected once they have gone unused for the grace period
+ALTER TABLE card_bodies ADD COLUMN IF NOT EXISTS last_used_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_flashcards_front_hash ON flashcards (front_hash);
+CREATE INDEX IF NOT EXISTS idx_flashcards_back_hash ON flashcards (back_hash);
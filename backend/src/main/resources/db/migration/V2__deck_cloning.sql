@@ -0,0 +1,4 @@
+-- Copy-on-write deck clones: a clone points at its source deck and only stores overlay rows
+ALTER TABLE decks ADD COLUMN IF NOT EXISTS source_deck_id BIGINT;
+ALTER TABLE flashcards ADD COLUMN IF NOT EXISTS source_card_id BIGINT;
+ALTER TABLE flashcards ADD COLUMN IF NOT EXISTS deleted BOOLEAN NOT NULL DEFAULT FALSE;
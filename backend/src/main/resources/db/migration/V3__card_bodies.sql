@@ -0,0 +1,13 @@
+-- Oversized card sides move to card_bodies; the card keeps a preview and the content hash
+ALTER TABLE flashcards ALTER COLUMN front SET DATA TYPE VARCHAR;
+ALTER TABLE flashcards ALTER COLUMN back SET DATA TYPE VARCHAR;
+ALTER TABLE decks ALTER COLUMN description SET DATA TYPE VARCHAR;
+ALTER TABLE flashcards ADD COLUMN IF NOT EXISTS front_hash VARCHAR(64);
+ALTER TABLE flashcards ADD COLUMN IF NOT EXISTS back_hash VARCHAR(64);
+
+CREATE TABLE IF NOT EXISTS card_bodies (
+  hash VARCHAR(64) PRIMARY KEY,
+  codec VARCHAR(16) NOT NULL,
+  original_length INTEGER NOT NULL,
+  content BYTEA NOT NULL
+);
@@ -0,0 +1,11 @@
+-- GET /api/decks/user/{userId}: findByUserId
+CREATE INDEX IF NOT EXISTS idx_decks_user_id ON decks (user_id);
+
+-- Deleting a cloned deck: findBySourceDeckId
+CREATE INDEX IF NOT EXISTS idx_decks_source_deck_id ON decks (source_deck_id);
+
+-- GET /api/decks/{id}/flashcards and card counts: findByDeckId, findByDeckIdInOrderByIdAsc, countByDeckId
+CREATE INDEX IF NOT EXISTS idx_flashcards_deck_id ON flashcards (deck_id, id);
+
+-- Copy-on-write edits: findByDeckIdAndSourceCardId; at most one overlay per inherited card
+CREATE UNIQUE INDEX IF NOT EXISTS idx_flashcards_deck_source ON flashcards (deck_id, source_card_id);
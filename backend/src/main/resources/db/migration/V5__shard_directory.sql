@@ -0,0 +1,14 @@
+-- Placement overrides for user-keyed sharding. Only the home shard's copies are read;
+-- users default to their hash ring position and decks to the shard that issued their id.
+
+CREATE TABLE IF NOT EXISTS shard_assignments (
+  user_id BIGINT PRIMARY KEY,
+  shard VARCHAR(64) NOT NULL,
+  assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS deck_relocations (
+  deck_id BIGINT PRIMARY KEY,
+  shard VARCHAR(64) NOT NULL,
+  relocated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,12 @@
+-- Per-user quiz results by topic, used to weight question sampling towards weak topics
+
+CREATE TABLE IF NOT EXISTS quiz_topic_stats (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  topic VARCHAR(100) NOT NULL,
+  weakness DOUBLE PRECISION NOT NULL,
+  answered INTEGER NOT NULL DEFAULT 0,
+  correct INTEGER NOT NULL DEFAULT 0,
+  CONSTRAINT fk_quiz_topic_stats_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+  CONSTRAINT uq_quiz_topic_stats_user_topic UNIQUE (user_id, topic)
+);
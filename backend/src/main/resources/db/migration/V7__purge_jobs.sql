@@ -0,0 +1,23 @@
+-- Soft deletes: a deleted deck or user is hidden from reads at once and removed later by a purge job
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+ALTER TABLE decks ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+-- Each shard keeps the jobs for the data it holds; user jobs live on the home shard
+CREATE TABLE IF NOT EXISTS purge_jobs (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  target_type VARCHAR(16) NOT NULL,
+  target_id BIGINT NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  cards_deleted BIGINT NOT NULL DEFAULT 0,
+  decks_deleted BIGINT NOT NULL DEFAULT 0,
+  lease_until TIMESTAMP,
+  last_error VARCHAR(1000),
+  created_at TIMESTAMP NOT NULL,
+  updated_at TIMESTAMP NOT NULL,
+  finished_at TIMESTAMP,
+  CONSTRAINT uq_purge_jobs_target UNIQUE (target_type, target_id)
+);
+
+-- The purge worker polls for unfinished jobs
+CREATE INDEX IF NOT EXISTS idx_purge_jobs_status ON purge_jobs (status, id);
@@ -0,0 +1,19 @@
+-- Media attached to cards. The files live in the content-addressed media store on disk;
+-- rows only reference them by SHA-256, so the same file attached to many cards is stored once.
+
+CREATE TABLE IF NOT EXISTS card_attachments (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  flashcard_id BIGINT NOT NULL,
+  hash VARCHAR(64) NOT NULL,
+  content_type VARCHAR(100) NOT NULL,
+  file_name VARCHAR(255),
+  size_bytes BIGINT NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_card_attachments_flashcard FOREIGN KEY (flashcard_id) REFERENCES flashcards(id) ON DELETE CASCADE
+);
+
+-- Attachments of a card, in upload order
+CREATE INDEX IF NOT EXISTS idx_card_attachments_flashcard ON card_attachments (flashcard_id, id);
+
+-- Garbage collection of unreferenced files
+CREATE INDEX IF NOT EXISTS idx_card_attachments_hash ON card_attachments (hash);
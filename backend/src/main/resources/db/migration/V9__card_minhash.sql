@@ -0,0 +1,5 @@
+-- MinHash signature of each card's normalized text, used to find near-duplicate cards without
+-- comparing every pair. Cards written before this migration are signed when they are next
+-- edited, when their owner's duplicate index is built, or when their deck is deduplicated.
+
+ALTER TABLE flashcards ADD COLUMN IF NOT EXISTS minhash BYTEA;
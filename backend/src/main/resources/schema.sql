@@ -1,31 +0,0 @@
--- User table
-CREATE TABLE IF NOT EXISTS users (
-  id SERIAL PRIMARY KEY,
-  username VARCHAR(50) NOT NULL UNIQUE,
-  email VARCHAR(100) NOT NULL UNIQUE,
-  password VARCHAR(100),
-  provider VARCHAR(20)
-);
-
--- Deck table
-CREATE TABLE IF NOT EXISTS decks (
-  id SERIAL PRIMARY KEY,
-  title VARCHAR(100) NOT NULL,
-  description TEXT,
-  user_id BIGINT NOT NULL,
-  card_count INT DEFAULT 0,
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-);
-
--- Flashcard table
-CREATE TABLE IF NOT EXISTS flashcards (
-  id SERIAL PRIMARY KEY,
-  front TEXT NOT NULL,
-  back TEXT NOT NULL,
-  deck_id BIGINT NOT NULL,
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  FOREIGN KEY (deck_id) REFERENCES decks(id) ON DELETE CASCADE
-); 
\ No newline at end of file
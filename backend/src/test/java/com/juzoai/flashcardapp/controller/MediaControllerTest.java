@@ -0,0 +1,191 @@
+package com.juzoai.flashcardapp.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+import com.juzoai.flashcardapp.service.MediaStore;
+
+@SpringBootTest(classes = FlashcardApplication.class, properties = {
+        "app.media.gc-interval-ms=0",
+        "app.media.gc-grace-ms=0"
+})
+@AutoConfigureMockMvc
+class MediaControllerTest {
+
+    @TempDir
+    static Path mediaRoot;
+
+    @DynamicPropertySource
+    static void mediaProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.media.root", () -> mediaRoot.toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private DeckCloneService deckCloneService;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Test
+    void uploadsAreStoredOnceAndServedWithRangesAndImmutableCaching() throws Exception {
+        byte[] image = randomBytes(200_000);
+        Flashcard first = newCard();
+        Flashcard second = newCard();
+
+        String url = upload(first, image, "image/png").get("url").asText();
+        assertThat(upload(second, image, "image/png").get("url").asText()).isEqualTo(url);
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        assertThat(storedFiles()).filteredOn(file -> file.getFileName().toString().equals(hash)).hasSize(1);
+
+        byte[] served = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(served).isEqualTo(image);
+
+        String etag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+
+        byte[] part = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=1000-1099"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1099/200000"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(part).isEqualTo(Arrays.copyOfRange(image, 1000, 1100));
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=300000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        mockMvc.perform(post("/api/decks/" + first.getDeck().getId() + "/flashcards/" + first.getId() + "/attachments")
+                        .contentType("text/html").content("<script></script>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void clonesShareAttachmentsUntilTheyRemoveThem() throws Exception {
+        Flashcard card = newCard();
+        upload(card, randomBytes(1_000), "image/gif");
+        Deck clone = deckCloneService.cloneDeck(card.getDeck().getId(), null).orElseThrow();
+
+        JsonNode inherited = attachments(clone);
+        assertThat(inherited).hasSize(1);
+
+        mockMvc.perform(delete("/api/decks/" + clone.getId() + "/flashcards/" + card.getId()
+                        + "/attachments/" + inherited.get(0).get("id").asLong()))
+                .andExpect(status().isNoContent());
+
+        assertThat(attachments(clone)).isEmpty();
+        assertThat(attachments(card.getDeck())).hasSize(1);
+    }
+
+    @Test
+    void unreferencedFilesAreCollected() throws Exception {
+        Flashcard card = newCard();
+        JsonNode attachment = upload(card, randomBytes(5_000), "video/mp4");
+        String url = attachment.get("url").asText();
+
+        mediaStore.collectGarbage();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/decks/" + card.getDeck().getId() + "/flashcards/" + card.getId()
+                        + "/attachments/" + attachment.get("id").asLong()))
+                .andExpect(status().isNoContent());
+        mediaStore.collectGarbage();
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploadsForUnknownCardsAreRefusedBeforeAnythingIsStored() throws Exception {
+        Flashcard card = newCard();
+        Flashcard elsewhere = newCard();
+        List<Path> before = storedFiles();
+
+        mockMvc.perform(post("/api/decks/" + (card.getDeck().getId() + 1_000_000) + "/flashcards/" + card.getId()
+                        + "/attachments").contentType("image/png").content(randomBytes(10_000)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/decks/" + card.getDeck().getId() + "/flashcards/" + elsewhere.getId()
+                        + "/attachments").contentType("image/png").content(randomBytes(10_000)))
+                .andExpect(status().isNotFound());
+
+        assertThat(storedFiles()).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    private Flashcard newCard() {
+        Deck deck = new Deck();
+        deck.setTitle("Media");
+        deckRepository.save(deck);
+        Flashcard card = new Flashcard();
+        card.setFront("front");
+        card.setBack("back");
+        card.setDeck(deck);
+        return flashcardRepository.save(card);
+    }
+
+    private JsonNode upload(Flashcard card, byte[] content, String contentType) throws Exception {
+        String json = mockMvc.perform(post("/api/decks/" + card.getDeck().getId() + "/flashcards/" + card.getId()
+                        + "/attachments").param("fileName", "diagram").contentType(contentType).content(content))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private JsonNode attachments(Deck deck) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get("/api/decks/" + deck.getId() + "/attachments"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(mediaRoot)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.juzoai.flashcardapp.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import com.juzoai.flashcardapp.service.DeckCloneService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// SQL statement budgets per endpoint. A failure here usually means an N+1 or an extra existence check.
+@SpringBootTest(classes = FlashcardApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private DeckCloneService deckCloneService;
+
+    private Statistics statistics;
+    private User user;
+    private Deck deck;
+    private Deck clone;
+    private Flashcard card;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = new User("query-count-" + System.nanoTime(), System.nanoTime() + "@example.com", "test");
+        userRepository.save(user);
+
+        deck = new Deck();
+        deck.setTitle("Query count");
+        deck.setUser(user);
+        deckRepository.save(deck);
+        for (int i = 0; i < 5; i++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setFront("front " + i);
+            flashcard.setBack("back " + i);
+            flashcard.setDeck(deck);
+            card = flashcardRepository.save(flashcard);
+        }
+        deck.setCardCount(5);
+        deckRepository.save(deck);
+
+        clone = deckCloneService.cloneDeck(deck.getId(), user.getId()).orElseThrow();
+    }
+
+    @Test
+    void getAllDecks() throws Exception {
+        assertStatements(1, get("/api/decks"), status().isOk());
+    }
+
+    @Test
+    void getDeckById() throws Exception {
+        assertStatements(1, get("/api/decks/" + deck.getId()), status().isOk());
+    }
+
+    @Test
+    void getDecksByUser() throws Exception {
+        assertStatements(1, get("/api/decks/user/" + user.getId()), status().isOk());
+    }
+
+    @Test
+    void getFlashcardsByDeck() throws Exception {
+        assertStatements(2, get("/api/decks/" + deck.getId() + "/flashcards"), status().isOk());
+    }
+
+    @Test
+    void getFlashcardsByClonedDeck() throws Exception {
+        // deck, one lineage step, and a single query for the cards of the whole lineage
+        assertStatements(3, get("/api/decks/" + clone.getId() + "/flashcards"), status().isOk());
+    }
+
+    @Test
+    void getFlashcardsByMissingDeck() throws Exception {
+        assertStatements(1, get("/api/decks/0/flashcards"), status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void getFlashcardById() throws Exception {
+        assertStatements(1, get("/api/flashcards/" + card.getId()), status().isOk());
+    }
+
+    @Test
+    void createFlashcard() throws Exception {
+        // deck, the owner's duplicate index (loaded once per owner), insert, count, deck card count update
+        assertStatements(5, post("/api/decks/" + deck.getId() + "/flashcards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"front\":\"new front\",\"back\":\"new back\"}"), status().isCreated());
+    }
+
+    @Test
+    void updateFlashcard() throws Exception {
+        // deck, card, update, the owner's duplicate index (loaded once per owner)
+        assertStatements(4, put("/api/decks/" + deck.getId() + "/flashcards/" + card.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"front\":\"edited front\",\"back\":\"edited back\"}"), status().isOk());
+    }
+
+    @Test
+    void deleteFlashcard() throws Exception {
+        // deck, card, delete, count, deck card count update
+        assertStatements(5, delete("/api/decks/" + deck.getId() + "/flashcards/" + card.getId()),
+                status().isNoContent());
+    }
+
+    private void assertStatements(long expected, RequestBuilder request, ResultMatcher status) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status);
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements executed")
+                .isEqualTo(expected);
+    }
+}
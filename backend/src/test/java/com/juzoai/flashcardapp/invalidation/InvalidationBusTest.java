@@ -0,0 +1,178 @@
+package com.juzoai.flashcardapp.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+
+@SpringBootTest(classes = FlashcardApplication.class)
+@Import(InvalidationBusTest.Listeners.class)
+class InvalidationBusTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private RecordingListener applicationListener;
+
+    private final LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+    private final List<InvalidationBus> buses = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void closeBuses() {
+        buses.forEach(InvalidationBus::close);
+    }
+
+    @Test
+    void invalidationsAreDeliveredOnceTheTransactionCommits() {
+        RecordingListener sender = new RecordingListener();
+        RecordingListener receiver = new RecordingListener();
+        InvalidationBus bus = node(new LoopbackTransport(hub), sender);
+        node(new LoopbackTransport(hub), receiver);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            bus.publish(Invalidation.Kind.DECK, 1);
+            bus.publish(Invalidation.Kind.DECK_CARDS, 1);
+            bus.publish(Invalidation.Kind.DECK, 1);
+            assertThat(sender.local).isEmpty();
+        });
+        transaction.executeWithoutResult(status -> {
+            bus.publish(Invalidation.Kind.DECK, 2);
+            status.setRollbackOnly();
+        });
+
+        assertThat(sender.local).containsExactly("DECK:1", "DECK_CARDS:1");
+        assertThat(receiver.remote).isEmpty();
+
+        bus.flush();
+        assertThat(receiver.remote).containsExactly("DECK:1", "DECK_CARDS:1");
+        assertThat(receiver.local).isEmpty();
+        assertThat(sender.remote).isEmpty();
+        assertThat(receiver.flushes).hasValue(0);
+    }
+
+    @Test
+    void lostMessageFlushesTheReceiversCaches() {
+        RecordingListener receiver = new RecordingListener();
+        DroppingTransport transport = new DroppingTransport(new LoopbackTransport(hub));
+        InvalidationBus bus = node(transport, new RecordingListener());
+        node(new LoopbackTransport(hub), receiver);
+
+        bus.publish(Invalidation.Kind.USER_CARDS, 7);
+        bus.flush();
+        assertThat(receiver.remote).containsExactly("USER_CARDS:7");
+
+        transport.dropNext = true;
+        bus.publish(Invalidation.Kind.USER_CARDS, 8);
+        bus.flush();
+        assertThat(receiver.remote).containsExactly("USER_CARDS:7");
+
+        // The heartbeat repeats the sequence of the lost message
+        bus.flush();
+        assertThat(receiver.flushes).hasValue(1);
+
+        bus.publish(Invalidation.Kind.USER_CARDS, 9);
+        bus.flush();
+        assertThat(receiver.remote).containsExactly("USER_CARDS:7", "USER_CARDS:9");
+        assertThat(receiver.flushes).hasValue(1);
+    }
+
+    @Test
+    void entityWritesArePublishedAfterCommit() {
+        applicationListener.local.clear();
+        Deck deck = new Deck();
+        deck.setTitle("Invalidation");
+        deck = deckRepository.save(deck);
+        assertThat(applicationListener.local).contains("DECK:" + deck.getId());
+
+        applicationListener.local.clear();
+        deck.setTitle("Renamed");
+        deckRepository.save(deck);
+        assertThat(applicationListener.local).containsExactly("DECK:" + deck.getId());
+    }
+
+    private InvalidationBus node(InvalidationTransport transport, InvalidationListener listener) {
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory(Map.of("listener", listener));
+        // Flushed by the test; heartbeats on every flush that has nothing to send
+        InvalidationBus bus = new InvalidationBus(transport, listeners.getBeanProvider(InvalidationListener.class),
+                3_600_000, 0);
+        bus.start();
+        buses.add(bus);
+        return bus;
+    }
+
+    @TestConfiguration
+    static class Listeners {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements InvalidationListener {
+        final List<String> local = new CopyOnWriteArrayList<>();
+        final List<String> remote = new CopyOnWriteArrayList<>();
+        final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void invalidate(Invalidation invalidation, boolean remote) {
+            (remote ? this.remote : this.local).add(invalidation.kind() + ":" + invalidation.id());
+        }
+
+        @Override
+        public void invalidateAll() {
+            flushes.incrementAndGet();
+        }
+    }
+
+    static class DroppingTransport implements InvalidationTransport {
+        private final InvalidationTransport delegate;
+        volatile boolean dropNext;
+
+        DroppingTransport(InvalidationTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void start(Consumer<byte[]> receiver) throws IOException {
+            delegate.start(receiver);
+        }
+
+        @Override
+        public void send(byte[] message) throws IOException {
+            if (dropNext) {
+                dropNext = false;
+                return;
+            }
+            delegate.send(message);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.juzoai.flashcardapp.replication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+import com.juzoai.flashcardapp.FlashcardApplication;
+
+// Two separate H2 databases stand in for a primary and a replica. They are deliberately not
+// replicated, so the data an endpoint returns shows which of them served it.
+@SpringBootTest(classes = FlashcardApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw_primary;DB_CLOSE_DELAY=-1",
+        "spring.jpa.open-in-view=false",
+        "app.replicas.enabled=true",
+        "app.replicas.nodes[0].name=replica0",
+        "app.replicas.nodes[0].url=" + ReadReplicaTest.REPLICA_URL,
+        "app.replicas.nodes[0].username=sa",
+        "app.replicas.nodes[0].password="
+})
+@AutoConfigureMockMvc
+class ReadReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw_replica;DB_CLOSE_DELAY=-1";
+
+    private static JdbcTemplate replica;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void createReplicaSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void readOnlyEndpointsAreServedByTheReplica() throws Exception {
+        replica.update("INSERT INTO decks (id, title, card_count) VALUES (900001, 'replica only', 0)");
+
+        mockMvc.perform(get("/api/decks/900001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("replica only"));
+    }
+
+    @Test
+    void clientsReadTheirOwnWritesWhileTheTokenIsFresh() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/decks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"written to primary\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(ReadYourWrites.HEADER))
+                .andReturn();
+        String token = result.getResponse().getHeader(ReadYourWrites.HEADER);
+        String id = JsonPath.read(result.getResponse().getContentAsString(), "$.id").toString();
+
+        mockMvc.perform(get("/api/decks/" + id).header(ReadYourWrites.HEADER, token))
+                .andExpect(status().isOk());
+
+        // Without the token, or once it has expired, the read goes to the (unreplicated) replica
+        mockMvc.perform(get("/api/decks/" + id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/decks/" + id).header(ReadYourWrites.HEADER, "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void connectionsWithExplicitCredentialsAreRoutedLikeTheOthers() throws Exception {
+        DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:rw_primary", "sa", "");
+        DriverManagerDataSource replicaNode = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        try (ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary,
+                List.of(new ReplicaPoolDataSource.Replica("replica0", replicaNode)), 60000, 1)) {
+            try (Connection connection = pool.getConnection("sa", "")) {
+                assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:rw_replica");
+            }
+            ReadYourWrites.pin();
+            try (Connection connection = pool.getConnection("sa", "")) {
+                assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:rw_primary");
+            } finally {
+                ReadYourWrites.clear();
+            }
+            assertThat(pool.healthyReplicas()).isOne();
+        }
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenNoReplicaIsHealthy() throws Exception {
+        DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:rw_primary", "sa", "");
+        DriverManagerDataSource down = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/down", "sa", "");
+        try (ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary,
+                List.of(new ReplicaPoolDataSource.Replica("down", down)), 60000, 1)) {
+            try (Connection connection = pool.getConnection()) {
+                assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:rw_primary");
+            }
+            assertThat(pool.healthyReplicas()).isZero();
+        }
+    }
+}
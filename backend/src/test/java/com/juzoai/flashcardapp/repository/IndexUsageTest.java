@@ -0,0 +1,50 @@
+package com.juzoai.flashcardapp.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+
+// Checks on H2 that the read path queries are answered from an index. H2 also indexes foreign
+// keys on its own, which PostgreSQL does not, so the migration indexes are checked separately.
+@SpringBootTest(classes = FlashcardApplication.class)
+class IndexUsageTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT * FROM decks WHERE user_id = 1",
+            "SELECT * FROM decks WHERE source_deck_id = 1",
+            "SELECT * FROM flashcards WHERE deck_id = 1",
+            "SELECT * FROM flashcards WHERE deck_id IN (1, 2) ORDER BY id",
+            "SELECT COUNT(*) FROM flashcards WHERE deck_id = 1",
+            "SELECT * FROM flashcards WHERE deck_id = 1 AND source_card_id = 2"
+    })
+    void readPathQueryUsesIndex(String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void migrationsCreateReadPathIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+
+        assertThat(indexes).contains(
+                "IDX_DECKS_USER_ID",
+                "IDX_DECKS_SOURCE_DECK_ID",
+                "IDX_FLASHCARDS_DECK_ID",
+                "IDX_FLASHCARDS_DECK_SOURCE");
+    }
+}
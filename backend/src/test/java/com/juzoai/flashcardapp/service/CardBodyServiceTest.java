@@ -0,0 +1,186 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.CardBodyRepository;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import com.juzoai.flashcardapp.sharding.ShardRouter;
+
+@SpringBootTest(classes = FlashcardApplication.class, properties = "app.cards.body-gc-interval-ms=0")
+class CardBodyServiceTest {
+
+    private static final int INLINE_LIMIT = 1024;
+    private static final int PREVIEW_LENGTH = 200;
+
+    @Autowired
+    private CardBodyService cardBodyService;
+
+    @Autowired
+    private CardBodyRepository cardBodyRepository;
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void oversizedSidesAreStoredCompressedAndReadBackWhole() {
+        String text = longText("Ω round trip ");
+        Flashcard card = cardBodyService.externalize(card(text, "x".repeat(INLINE_LIMIT)));
+
+        assertThat(card.getFrontHash()).isNotNull();
+        assertThat(card.getFront()).hasSizeLessThanOrEqualTo(PREVIEW_LENGTH).endsWith("…");
+        assertThat(text).startsWith(card.getFront().substring(0, card.getFront().length() - 1));
+        // A side at the inline limit stays in the card
+        assertThat(card.getBackHash()).isNull();
+        assertThat(card.getBack()).isEqualTo("x".repeat(INLINE_LIMIT));
+        assertThat(cardBodyService.fullFront(card)).isEqualTo(text);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT codec, original_length, content FROM card_bodies WHERE hash = ?", card.getFrontHash());
+        int length = text.getBytes(StandardCharsets.UTF_8).length;
+        assertThat(row.get("codec")).isEqualTo("deflate");
+        assertThat(row.get("original_length")).isEqualTo(length);
+        assertThat(((byte[]) row.get("content")).length).isLessThan(length / 4);
+
+        // Without a cache the body is inflated from the stored row
+        assertThat(uncachedService(0).findBody(card.getFrontHash())).contains(text);
+    }
+
+    @Test
+    void previewsKeepSurrogatePairsWholeAndAnEchoedPreviewKeepsTheBody() {
+        String text = "a".repeat(PREVIEW_LENGTH - 2) + "😀" + longText("b");
+        Flashcard card = cardBodyService.externalize(card(text, "back"));
+        String hash = card.getFrontHash();
+        assertThat(card.getFront()).isEqualTo("a".repeat(PREVIEW_LENGTH - 2) + "…");
+
+        // A client sending back the card it was given leaves the full text in place
+        Flashcard echoed = card(card.getFront(), "back");
+        echoed.setFrontHash(hash);
+        cardBodyService.externalize(echoed);
+        assertThat(echoed.getFrontHash()).isEqualTo(hash);
+        assertThat(cardBodyService.fullFront(echoed)).isEqualTo(text);
+
+        // An edited short text replaces the body
+        Flashcard edited = card("short now", "back");
+        edited.setFrontHash(hash);
+        cardBodyService.externalize(edited);
+        assertThat(edited.getFrontHash()).isNull();
+        assertThat(cardBodyService.fullFront(edited)).isEqualTo("short now");
+    }
+
+    @Test
+    void identicalTextIsStoredOnceEvenWhenWrittenConcurrently() throws Exception {
+        String text = longText("shared " + System.nanoTime() + " ");
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> hashes = new ArrayList<>();
+        try {
+            for (int i = 0; i < writers; i++) {
+                // Separate services so every writer goes to the database rather than a shared cache
+                CardBodyService writer = uncachedService(0);
+                hashes.add(pool.submit(() -> {
+                    start.await();
+                    return writer.externalize(card(text, "back")).getFrontHash();
+                }));
+            }
+            start.countDown();
+            String hash = hashes.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<String> other : hashes) {
+                assertThat(other.get(30, TimeUnit.SECONDS)).isEqualTo(hash);
+            }
+            assertThat(cardBodyService.externalize(card(text, "back")).getFrontHash()).isEqualTo(hash);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_bodies WHERE hash = ?", Integer.class, hash))
+                    .isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void collectsBodiesNoCardUsesOnceTheGracePeriodIsOver() throws Exception {
+        Deck deck = newDeck();
+        Flashcard kept = cardBodyService.externalize(card(longText("kept " + System.nanoTime() + " "), "back"));
+        kept.setDeck(deck);
+        flashcardRepository.save(kept);
+        String keptBack = cardBodyService.externalize(card("front", longText("kept back " + System.nanoTime() + " ")))
+                .getBackHash();
+        jdbcTemplate.update("UPDATE flashcards SET back_hash = ? WHERE id = ?", keptBack, kept.getId());
+        String orphanText = longText("orphan " + System.nanoTime() + " ");
+        String orphan = cardBodyService.externalize(card(orphanText, "back")).getFrontHash();
+
+        // Recently stored bodies may belong to cards that are not committed yet
+        cardBodyService.collectGarbage();
+        assertThat(cardBodyRepository.existsById(orphan)).isTrue();
+
+        Thread.sleep(10);
+        uncachedService(0).collectGarbage();
+        assertThat(cardBodyRepository.existsById(orphan)).isFalse();
+        assertThat(cardBodyRepository.existsById(kept.getFrontHash())).isTrue();
+        assertThat(cardBodyRepository.existsById(keptBack)).isTrue();
+
+        // Storing the same text again brings the body back
+        assertThat(cardBodyService.externalize(card(orphanText, "back")).getFrontHash()).isEqualTo(orphan);
+        assertThat(uncachedService(0).findBody(orphan)).contains(orphanText);
+    }
+
+    private CardBodyService uncachedService(long gcGraceMs) {
+        return new CardBodyService(cardBodyRepository, flashcardRepository, shardRouter, transactionManager,
+                INLINE_LIMIT, PREVIEW_LENGTH, 0, 0, gcGraceMs);
+    }
+
+    private static String longText(String unit) {
+        return unit.repeat(INLINE_LIMIT / unit.length() * 4);
+    }
+
+    private static Flashcard card(String front, String back) {
+        Flashcard card = new Flashcard();
+        card.setFront(front);
+        card.setBack(back);
+        return card;
+    }
+
+    private Deck newDeck() {
+        User user = userRepository.save(new User("bodies-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+        Deck deck = new Deck();
+        deck.setTitle("Bodies");
+        deck.setUser(user);
+        return deckRepository.save(deck);
+    }
+}
@@ -0,0 +1,179 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.FlashcardRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+
+@SpringBootTest(classes = FlashcardApplication.class)
+class DeckCloneServiceTest {
+
+    @Autowired
+    private DeckCloneService deckCloneService;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cloneShowsItsSourceThroughOverlaysTombstonesAndOwnCards() {
+        User user = newUser();
+        Deck source = deckWithCards(user, "s", 3);
+        List<Long> s = cardIds(source);
+        Deck clone = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+        assertThat(fronts(clone)).containsExactly("s0", "s1", "s2");
+
+        deckCloneService.updateCard(clone, s.get(0), card("edited")).orElseThrow();
+        deckCloneService.updateCard(clone, s.get(0), card("edited again")).orElseThrow();
+        assertThat(deckCloneService.deleteCard(clone, s.get(1))).isTrue();
+        addCard(clone, "own");
+
+        // The overlay keeps the position of the card it replaces; the source is unchanged
+        assertThat(fronts(clone)).containsExactly("edited again", "s2", "own");
+        assertThat(deckCloneService.countCards(clone)).isEqualTo(3);
+        assertThat(fronts(source)).containsExactly("s0", "s1", "s2");
+        assertThat(deckCloneService.countCards(source)).isEqualTo(3);
+        // One row per edited card, however often it is edited
+        assertThat(flashcardRepository.countByDeckId(clone.getId())).isEqualTo(3);
+
+        // Deleting the overlay keeps hiding the card it replaced
+        Long overlayId = flashcardRepository.findByDeckIdAndSourceCardId(clone.getId(), s.get(0)).orElseThrow().getId();
+        assertThat(deckCloneService.deleteCard(clone, overlayId)).isTrue();
+        assertThat(fronts(clone)).containsExactly("s2", "own");
+        assertThat(deckCloneService.countCards(clone)).isEqualTo(2);
+    }
+
+    @Test
+    void cloneOfACloneMergesEveryLevel() {
+        User user = newUser();
+        Deck source = deckWithCards(user, "s", 3);
+        List<Long> s = cardIds(source);
+        Deck middle = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+        Long middleOverlay = deckCloneService.updateCard(middle, s.get(0), card("middle")).orElseThrow().getId();
+        Deck clone = deckCloneService.cloneDeck(middle.getId(), user.getId()).orElseThrow();
+        assertThat(clone.getSourceDeckId()).isEqualTo(middle.getId());
+
+        deckCloneService.updateCard(clone, middleOverlay, card("clone")).orElseThrow();
+        deckCloneService.deleteCard(clone, s.get(2));
+
+        assertThat(fronts(clone)).containsExactly("clone", "s1");
+        assertThat(deckCloneService.countCards(clone)).isEqualTo(2);
+        assertThat(fronts(middle)).containsExactly("middle", "s1", "s2");
+        // Cards outside the lineage cannot be edited or deleted through the clone
+        Long unrelated = cardIds(deckWithCards(user, "u", 1)).get(0);
+        assertThat(deckCloneService.updateCard(clone, unrelated, card("nope"))).isEmpty();
+        assertThat(deckCloneService.deleteCard(clone, unrelated)).isFalse();
+    }
+
+    @Test
+    void cloneWithoutEditsIsClonedFromItsSource() {
+        User user = newUser();
+        Deck source = deckWithCards(user, "s", 2);
+        Deck unchanged = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+
+        Deck clone = deckCloneService.cloneDeck(unchanged.getId(), user.getId()).orElseThrow();
+
+        assertThat(clone.getSourceDeckId()).isEqualTo(source.getId());
+        assertThat(clone.getCardCount()).isEqualTo(2);
+    }
+
+    @Test
+    void detachingKeepsClonesOfClonesIntact() {
+        User user = newUser();
+        Deck source = deckWithCards(user, "s", 4);
+        List<Long> s = cardIds(source);
+        Deck middle = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+        Long middleOverlay = deckCloneService.updateCard(middle, s.get(0), card("middle")).orElseThrow().getId();
+        deckCloneService.deleteCard(middle, s.get(1));
+        Deck clone = deckCloneService.cloneDeck(middle.getId(), user.getId()).orElseThrow();
+        // The clone replaces cards of the source directly, and brings back the card its source deleted
+        deckCloneService.updateCard(clone, middleOverlay, card("clone over middle")).orElseThrow();
+        deckCloneService.updateCard(clone, s.get(2), card("clone over source")).orElseThrow();
+        deckCloneService.updateCard(clone, s.get(1), card("brought back")).orElseThrow();
+        deckCloneService.deleteCard(clone, s.get(3));
+        List<String> middleBefore = fronts(middle);
+        List<String> cloneBefore = fronts(clone);
+        assertThat(middleBefore).containsExactly("middle", "s2", "s3");
+        assertThat(cloneBefore).containsExactlyInAnyOrder("clone over middle", "brought back", "clone over source");
+
+        deckCloneService.detachClones(source.getId());
+        jdbcTemplate.update("DELETE FROM flashcards WHERE deck_id = ?", source.getId());
+        jdbcTemplate.update("DELETE FROM decks WHERE id = ?", source.getId());
+
+        middle = deckRepository.findById(middle.getId()).orElseThrow();
+        clone = deckRepository.findById(clone.getId()).orElseThrow();
+        assertThat(middle.getSourceDeckId()).isNull();
+        assertThat(clone.getSourceDeckId()).isEqualTo(middle.getId());
+        assertThat(fronts(middle)).containsExactlyElementsOf(middleBefore);
+        assertThat(fronts(clone)).containsExactlyInAnyOrderElementsOf(cloneBefore);
+        assertThat(deckCloneService.countCards(clone)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM flashcards WHERE deck_id IN (?, ?) "
+                + "AND source_card_id IN (?, ?, ?, ?)", Integer.class,
+                middle.getId(), clone.getId(), s.get(0), s.get(1), s.get(2), s.get(3))).isZero();
+
+        // The clone's edits and deletions still apply to the middle deck's copies
+        for (Flashcard copy : flashcardRepository.findByDeckId(middle.getId())) {
+            deckCloneService.updateCard(middle, copy.getId(), card(copy.getFront() + " edited"));
+        }
+        assertThat(fronts(clone)).containsExactlyInAnyOrderElementsOf(cloneBefore);
+    }
+
+    private List<String> fronts(Deck deck) {
+        return deckCloneService.findCards(deck).stream().map(Flashcard::getFront).toList();
+    }
+
+    private List<Long> cardIds(Deck deck) {
+        return jdbcTemplate.queryForList("SELECT id FROM flashcards WHERE deck_id = ? ORDER BY id", Long.class, deck.getId());
+    }
+
+    private void addCard(Deck deck, String front) {
+        Flashcard own = card(front);
+        own.setDeck(deck);
+        flashcardRepository.save(own);
+    }
+
+    private static Flashcard card(String front) {
+        Flashcard card = new Flashcard();
+        card.setFront(front);
+        card.setBack("back");
+        return card;
+    }
+
+    private User newUser() {
+        return userRepository.save(new User("clone-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+    }
+
+    private Deck deckWithCards(User user, String prefix, int cards) {
+        Deck deck = new Deck();
+        deck.setTitle("Clone");
+        deck.setUser(user);
+        deck.setCardCount(cards);
+        deckRepository.save(deck);
+        List<Object[]> rows = IntStream.range(0, cards)
+                .mapToObj(i -> new Object[] {deck.getId(), prefix + i, "back"})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO flashcards (deck_id, front, back, deleted) VALUES (?, ?, ?, FALSE)", rows);
+        return deck;
+    }
+}
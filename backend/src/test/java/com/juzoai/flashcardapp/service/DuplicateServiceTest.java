@@ -0,0 +1,260 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.DedupeJob;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+
+// The background worker is off; the job test runs the pending jobs itself
+@SpringBootTest(classes = FlashcardApplication.class, properties = {
+        "app.dedupe.job-poll-interval-ms=0",
+        "app.dedupe.job-pause-ms=0",
+        "app.admin.usernames=dedupe-operator, someone-else"
+})
+@AutoConfigureMockMvc
+class DuplicateServiceTest {
+
+    private static final String FRONT = "What is the time complexity of binary search on a sorted array?";
+    private static final String BACK = "O(log n), because every comparison halves the remaining range.";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DuplicateService duplicateService;
+
+    @Autowired
+    private DedupeJobService dedupeJobService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void signaturesOfRewordedCardsAreClose() {
+        int[] original = MinHash.signature(FRONT, BACK);
+        assertThat(MinHash.similarity(original, MinHash.signature(
+                "  what is the TIME complexity of binary-search on a sorted array ", BACK.toUpperCase())))
+                .isEqualTo(1.0);
+        assertThat(MinHash.similarity(original, MinHash.signature(
+                "What's the time complexity of a binary search on a sorted array?", BACK)))
+                .isGreaterThanOrEqualTo(0.8);
+        assertThat(MinHash.similarity(original, MinHash.signature("What does a hash map store?", "Key-value pairs")))
+                .isLessThan(0.3);
+    }
+
+    @Test
+    void newCardIsFlaggedWhenTheOwnerHasANearDuplicate() throws Exception {
+        User user = newUser();
+        Deck first = newDeck(user);
+        Deck second = newDeck(user);
+        long existing = create(first, FRONT, BACK).get("id").asLong();
+
+        JsonNode flagged = create(second, "what is the time complexity of binary search on a sorted array", BACK);
+        assertThat(flagged.get("possibleDuplicates")).extracting(JsonNode::asLong).containsExactly(existing);
+
+        JsonNode unrelated = create(second, "What does a hash map store?", "Key-value pairs");
+        assertThat(unrelated.has("possibleDuplicates")).isFalse();
+
+        // Another user's identical card is not theirs to merge with
+        JsonNode otherUsers = create(newDeck(newUser()), FRONT, BACK);
+        assertThat(otherUsers.has("possibleDuplicates")).isFalse();
+    }
+
+    @Test
+    void importSkipsDuplicatesOfTheDeckAndOfEarlierImportedCards() throws Exception {
+        Deck deck = newDeck(newUser());
+        long existing = create(deck, FRONT, BACK).get("id").asLong();
+
+        List<Map<String, String>> cards = List.of(
+                Map.of("front", "What does a hash map store?", "back", "Key-value pairs"),
+                Map.of("front", FRONT.toLowerCase(), "back", BACK),
+                Map.of("front", "What does a hash-map store", "back", "key value pairs"),
+                Map.of("front", "What is a stack?", "back", "A last-in first-out collection"));
+        String json = mockMvc.perform(post("/api/decks/" + deck.getId() + "/flashcards/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cards)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imported.length()").value(2))
+                .andExpect(jsonPath("$.skipped.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = objectMapper.readTree(json);
+        long hashMapCard = result.get("imported").get(0).get("id").asLong();
+        assertThat(result.get("skipped").get(0).get("position").asInt()).isEqualTo(1);
+        assertThat(result.get("skipped").get(0).get("duplicateOf").asLong()).isEqualTo(existing);
+        assertThat(result.get("skipped").get(1).get("position").asInt()).isEqualTo(2);
+        assertThat(result.get("skipped").get(1).get("duplicateOf").asLong()).isEqualTo(hashMapCard);
+        assertThat(deckRepository.findById(deck.getId()).orElseThrow().getCardCount()).isEqualTo(3);
+    }
+
+    @Test
+    void dedupeJobRemovesAllButTheOldestCardOfEachGroup() {
+        Deck deck = newDeck(newUser());
+        // Rows written before cards were signed
+        insertCard(deck, FRONT, BACK);
+        insertCard(deck, "What does a hash map store?", "Key-value pairs");
+        insertCard(deck, FRONT + "  ", BACK.toLowerCase());
+        insertCard(deck, "what is the time complexity of binary search on a sorted array", BACK);
+        insertCard(deck, "What is a stack?", "A last-in first-out collection");
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM flashcards WHERE deck_id = ? ORDER BY id", Long.class, deck.getId());
+
+        DuplicateService.DedupeResult dryRun = duplicateService.dedupeDeck(deck.getId(), true).orElseThrow();
+        assertThat(dryRun.cardsScanned()).isEqualTo(5);
+        assertThat(dryRun.groups()).containsExactly(
+                new DuplicateService.DuplicateGroup(ids.get(0), List.of(ids.get(2), ids.get(3))));
+        assertThat(cardCount(deck)).isEqualTo(5);
+
+        DuplicateService.DedupeResult result = duplicateService.dedupeDeck(deck.getId(), false).orElseThrow();
+        assertThat(result.cardsRemoved()).isEqualTo(2);
+        assertThat(cardCount(deck)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM flashcards WHERE deck_id = ? AND minhash IS NULL", Integer.class, deck.getId()))
+                .isZero();
+        assertThat(deckRepository.findById(deck.getId()).orElseThrow().getCardCount()).isEqualTo(3);
+        assertThat(duplicateService.dedupeDeck(deck.getId(), false).orElseThrow().groups()).isEmpty();
+    }
+
+    @Test
+    void dedupingEveryDeckIsForAdminsAndRunsInTheBackground() throws Exception {
+        Deck deck = newDeck(newUser());
+        insertCard(deck, FRONT, BACK);
+        insertCard(deck, FRONT.toUpperCase(), BACK);
+        insertCard(deck, "What is a stack?", "A last-in first-out collection");
+
+        mockMvc.perform(post("/api/admin/dedupe").param("dryRun", "false").with(user("dedupe-user")))
+                .andExpect(status().isForbidden());
+        assertThat(cardCount(deck)).isEqualTo(3);
+
+        String json = mockMvc.perform(post("/api/admin/dedupe").param("dryRun", "false")
+                        .with(user("dedupe-operator").roles("ADMIN")))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn().getResponse().getContentAsString();
+        long jobId = objectMapper.readTree(json).get("id").asLong();
+        // Nothing is removed while the request is served
+        assertThat(cardCount(deck)).isEqualTo(3);
+
+        dedupeJobService.runPendingJobs();
+
+        assertThat(cardCount(deck)).isEqualTo(2);
+        DedupeJob job = dedupeJobService.findJob(jobId).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(DedupeJob.Status.DONE);
+        assertThat(job.getDecksScanned()).isGreaterThanOrEqualTo(1);
+        assertThat(job.getCardsRemoved()).isGreaterThanOrEqualTo(1);
+        assertThat(job.getLastDeckId()).isGreaterThanOrEqualTo(deck.getId());
+        mockMvc.perform(get("/api/admin/dedupe/" + jobId).with(user("dedupe-operator").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+    }
+
+    @Test
+    void cardsRemovedByTheBatchJobLeaveTheSuggestions() throws Exception {
+        User user = newUser();
+        String created = mockMvc.perform(post("/api/decks").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                Map.of("title", "Suggested", "description", "", "user", Map.of("id", user.getId())))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Deck deck = deckRepository.findById(objectMapper.readTree(created).get("id").asLong()).orElseThrow();
+        String word = "zq" + Long.toString(System.nanoTime(), 36);
+        long kept = create(deck, "Define " + word + " in one sentence", BACK).get("id").asLong();
+        create(deck, "define " + word + " in one sentence!", BACK);
+        assertThat(suggest(word, user)).hasSize(2);
+
+        mockMvc.perform(post("/api/admin/dedupe").param("dryRun", "false")
+                        .with(user("dedupe-operator").roles("ADMIN")))
+                .andExpect(status().isAccepted());
+        dedupeJobService.runPendingJobs();
+
+        JsonNode suggestions = suggest(word, user);
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).get("id").asLong()).isEqualTo(kept);
+    }
+
+    @Test
+    void onlyConfiguredUsersAreAdmins() {
+        User operator = new User("dedupe-operator", "operator@example.com", "test");
+        operator.setPassword("secret");
+        userRepository.save(operator);
+        User someone = newUser();
+        someone.setPassword("secret");
+        userRepository.save(someone);
+
+        assertThat(userDetailsService.loadUserByUsername(operator.getUsername()).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        assertThat(userDetailsService.loadUserByUsername(someone.getUsername()).getAuthorities()).isEmpty();
+    }
+
+    private JsonNode create(Deck deck, String front, String back) throws Exception {
+        String json = mockMvc.perform(post("/api/decks/" + deck.getId() + "/flashcards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("front", front, "back", back))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private JsonNode suggest(String q, User user) throws Exception {
+        String json = mockMvc.perform(get("/api/decks/suggest").param("q", q).param("userId", user.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private User newUser() {
+        return userRepository.save(new User("dedupe-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+    }
+
+    private Deck newDeck(User user) {
+        Deck deck = new Deck();
+        deck.setTitle("Dedupe");
+        deck.setUser(user);
+        return deckRepository.save(deck);
+    }
+
+    private void insertCard(Deck deck, String front, String back) {
+        jdbcTemplate.update("INSERT INTO flashcards (deck_id, front, back, deleted) VALUES (?, ?, ?, FALSE)",
+                deck.getId(), front, back);
+    }
+
+    private int cardCount(Deck deck) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM flashcards WHERE deck_id = ?", Integer.class,
+                deck.getId());
+    }
+}
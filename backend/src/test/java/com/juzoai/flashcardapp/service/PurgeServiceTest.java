@@ -0,0 +1,228 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.Deck;
+import com.juzoai.flashcardapp.model.Flashcard;
+import com.juzoai.flashcardapp.model.PurgeJob;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.DeckRepository;
+import com.juzoai.flashcardapp.repository.UserRepository;
+
+// The background worker is off; each test runs the pending jobs itself
+@SpringBootTest(classes = FlashcardApplication.class, properties = {
+        "app.purge.poll-interval-ms=0",
+        "app.purge.pause-ms=0",
+        "app.purge.chunk-size=100"
+})
+@AutoConfigureMockMvc
+class PurgeServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PurgeService purgeService;
+
+    @Autowired
+    private DeckCloneService deckCloneService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @WithMockUser
+    void deletedDeckIsHiddenAtOnceAndPurgedInChunks() throws Exception {
+        Deck deck = deckWithCards(newUser(), 250);
+        Long cardId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM flashcards WHERE deck_id = ?", Long.class, deck.getId());
+
+        mockMvc.perform(delete("/api/decks/" + deck.getId()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        mockMvc.perform(get("/api/decks/" + deck.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/decks/" + deck.getId() + "/flashcards")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/flashcards/" + cardId)).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/decks/" + deck.getId())).andExpect(status().isNotFound());
+        assertThat(cardCount(deck.getId())).isEqualTo(250);
+
+        purgeService.runPendingJobs();
+
+        assertThat(cardCount(deck.getId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM decks WHERE id = ?", Integer.class, deck.getId()))
+                .isZero();
+        mockMvc.perform(get("/api/decks/" + deck.getId() + "/purge"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.cardsDeleted").value(250))
+                .andExpect(jsonPath("$.decksDeleted").value(1));
+    }
+
+    @Test
+    void clonesKeepTheirCardsWhenTheSourceIsPurged() throws Exception {
+        User user = newUser();
+        Deck source = deckWithCards(user, 3);
+        Deck clone = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+
+        purgeService.deleteDeck(source.getId()).orElseThrow();
+        mockMvc.perform(get("/api/decks/" + clone.getId() + "/flashcards"))
+                .andExpect(jsonPath("$.length()").value(3));
+
+        purgeService.runPendingJobs();
+
+        assertThat(cardCount(clone.getId())).isEqualTo(3);
+        assertThat(deckRepository.findById(clone.getId()).orElseThrow().getSourceDeckId()).isNull();
+        mockMvc.perform(get("/api/decks/" + clone.getId() + "/flashcards"))
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void clonesOfALargeDeckAreDetachedInChunksWithTheirEdits() {
+        User user = newUser();
+        Deck source = deckWithCards(user, 250);
+        Deck clone = deckCloneService.cloneDeck(source.getId(), user.getId()).orElseThrow();
+        List<Long> sourceIds = jdbcTemplate.queryForList(
+                "SELECT id FROM flashcards WHERE deck_id = ? ORDER BY id", Long.class, source.getId());
+        deckCloneService.updateCard(clone, sourceIds.get(0), card("edited", "back"));
+        deckCloneService.deleteCard(clone, sourceIds.get(1));
+        jdbcTemplate.update("INSERT INTO flashcards (deck_id, front, back, deleted) VALUES (?, 'own', 'back', FALSE)",
+                clone.getId());
+        List<String> before = fronts(clone.getId());
+
+        purgeService.deleteDeck(source.getId()).orElseThrow();
+        purgeService.runPendingJobs();
+
+        assertThat(cardCount(source.getId())).isZero();
+        assertThat(deckRepository.findById(clone.getId()).orElseThrow().getSourceDeckId()).isNull();
+        assertThat(fronts(clone.getId())).hasSize(250).containsExactlyInAnyOrderElementsOf(before)
+                .contains("edited", "own").doesNotContain("front 0", "front 1");
+        // Only plain cards are left: no tombstones and no references to the purged cards
+        assertThat(cardCount(clone.getId())).isEqualTo(250);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM flashcards WHERE deck_id = ? "
+                + "AND (deleted = TRUE OR source_card_id IS NOT NULL)", Integer.class, clone.getId())).isZero();
+    }
+
+    @Test
+    void cloneOfAPurgedCloneReadsThroughToTheOriginal() {
+        User user = newUser();
+        Deck original = deckWithCards(user, 3);
+        Deck middle = deckCloneService.cloneDeck(original.getId(), user.getId()).orElseThrow();
+        List<Long> originalIds = jdbcTemplate.queryForList(
+                "SELECT id FROM flashcards WHERE deck_id = ? ORDER BY id", Long.class, original.getId());
+        deckCloneService.updateCard(middle, originalIds.get(0), card("middle edit", "back"));
+        deckCloneService.deleteCard(middle, originalIds.get(1));
+        Deck clone = deckCloneService.cloneDeck(middle.getId(), user.getId()).orElseThrow();
+        List<String> before = fronts(clone.getId());
+
+        purgeService.deleteDeck(middle.getId()).orElseThrow();
+        purgeService.runPendingJobs();
+
+        assertThat(deckRepository.findById(clone.getId()).orElseThrow().getSourceDeckId()).isEqualTo(original.getId());
+        assertThat(before).containsExactlyInAnyOrder("middle edit", "front 2");
+        assertThat(fronts(clone.getId())).containsExactlyInAnyOrderElementsOf(before);
+        // Edits to the original still show through where the clone has none of its own
+        jdbcTemplate.update("UPDATE flashcards SET front = 'original edit' WHERE id = ?", originalIds.get(2));
+        assertThat(fronts(clone.getId())).containsExactlyInAnyOrder("middle edit", "original edit");
+    }
+
+    @Test
+    void jobLeasedByAnotherInstanceIsResumedOnceTheLeaseExpires() {
+        Deck deck = deckWithCards(newUser(), 10);
+        PurgeJob job = purgeService.deleteDeck(deck.getId()).orElseThrow();
+
+        // As left behind by an instance that stopped in the middle of the job
+        jdbcTemplate.update("UPDATE purge_jobs SET status = 'RUNNING', lease_until = DATEADD('HOUR', 1, CURRENT_TIMESTAMP) "
+                + "WHERE id = ?", job.getId());
+        purgeService.runPendingJobs();
+        assertThat(cardCount(deck.getId())).isEqualTo(10);
+
+        jdbcTemplate.update("UPDATE purge_jobs SET lease_until = DATEADD('HOUR', -1, CURRENT_TIMESTAMP) WHERE id = ?",
+                job.getId());
+        purgeService.runPendingJobs();
+        assertThat(cardCount(deck.getId())).isZero();
+        assertThat(purgeService.findDeckJob(deck.getId()).orElseThrow().getStatus()).isEqualTo(PurgeJob.Status.DONE);
+    }
+
+    @Test
+    void deletedUserLosesTheirDecksButOtherUsersClonesStay() throws Exception {
+        User owner = newUser();
+        User other = newUser();
+        Deck deck = deckWithCards(owner, 5);
+        Deck otherClone = deckCloneService.cloneDeck(deck.getId(), other.getId()).orElseThrow();
+
+        mockMvc.perform(delete("/api/users/" + owner.getId()).with(user(other.getUsername())))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/users/" + owner.getId()).with(user(owner.getUsername())))
+                .andExpect(status().isAccepted());
+
+        assertThat(userRepository.findById(owner.getId())).isEmpty();
+        mockMvc.perform(get("/api/decks/user/" + owner.getId())).andExpect(jsonPath("$.length()").value(0));
+
+        purgeService.runPendingJobs();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, owner.getId()))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM decks WHERE user_id = ?", Integer.class, owner.getId()))
+                .isZero();
+        assertThat(cardCount(otherClone.getId())).isEqualTo(5);
+        assertThat(purgeService.findUserJob(owner.getId()).orElseThrow().getDecksDeleted()).isEqualTo(1);
+    }
+
+    private User newUser() {
+        return userRepository.save(new User("purge-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+    }
+
+    private Deck deckWithCards(User user, int cards) {
+        Deck deck = new Deck();
+        deck.setTitle("Purge");
+        deck.setUser(user);
+        deck.setCardCount(cards);
+        deckRepository.save(deck);
+        List<Object[]> rows = IntStream.range(0, cards)
+                .mapToObj(i -> new Object[] {deck.getId(), "front " + i, "back " + i})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO flashcards (deck_id, front, back, deleted) VALUES (?, ?, ?, FALSE)", rows);
+        return deck;
+    }
+
+    private List<String> fronts(Long deckId) {
+        return deckCloneService.findCards(deckRepository.findById(deckId).orElseThrow()).stream()
+                .map(Flashcard::getFront)
+                .toList();
+    }
+
+    private static Flashcard card(String front, String back) {
+        Flashcard card = new Flashcard();
+        card.setFront(front);
+        card.setBack(back);
+        return card;
+    }
+
+    private int cardCount(Long deckId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM flashcards WHERE deck_id = ?", Integer.class, deckId);
+    }
+}
@@ -0,0 +1,128 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.UserRepository;
+
+@SpringBootTest(classes = FlashcardApplication.class, properties = "app.quiz.no-repeat-window=10")
+class QuizServiceTest {
+
+    private static final int WINDOW = 10;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizBank quizBank;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aliasTableDrawsInProportionToTheWeights() {
+        AliasTable table = new AliasTable(new double[] {1, 0, 2, 7});
+        Random random = new Random(42);
+        int draws = 200_000;
+        int[] counts = new int[table.size()];
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+
+        assertThat(counts[1]).isZero();
+        assertThat(counts[0] / (double) draws).isCloseTo(0.1, within(0.005));
+        assertThat(counts[2] / (double) draws).isCloseTo(0.2, within(0.005));
+        assertThat(counts[3] / (double) draws).isCloseTo(0.7, within(0.005));
+    }
+
+    @Test
+    void aliasTableWithoutWeightDrawsUniformly() {
+        AliasTable table = new AliasTable(new double[] {0, 0});
+        Random random = new Random(7);
+        int first = 0;
+        for (int i = 0; i < 10_000; i++) {
+            first += table.sample(random) == 0 ? 1 : 0;
+        }
+        assertThat(first / 10_000.0).isCloseTo(0.5, within(0.02));
+    }
+
+    @Test
+    void noQuestionRepeatsWithinTheWindow() {
+        String session = "window-" + System.nanoTime();
+        List<Integer> served = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            served.add(quizService.nextQuestion(null, session, null).orElseThrow().id());
+        }
+        assertNoRepeats(served, Math.min(WINDOW, quizBank.questionCount() - 1));
+
+        // Within one topic the window shrinks to the topic's size
+        String topic = quizBank.topic(0);
+        int topicSize = quizBank.questionsInTopic(0).length;
+        List<Integer> fromTopic = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            QuizService.QuestionView question = quizService.nextQuestion(null, session, topic).orElseThrow();
+            assertThat(question.topic()).isEqualTo(topic);
+            fromTopic.add(question.id());
+        }
+        assertNoRepeats(fromTopic, Math.min(WINDOW, topicSize - 1));
+    }
+
+    @Test
+    void concurrentFirstAnswersKeepOneRowWithTheLatestCounts() throws Exception {
+        User user = userRepository.save(new User("quiz-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+        int question = quizBank.questionsInTopic(0)[0];
+        int questionId = quizBank.questionId(question);
+        int answers = 32;
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < answers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return quizService.answer(user.getUsername(), null, questionId, quizBank.correctAnswer(question));
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT answered FROM quiz_topic_stats WHERE user_id = ? AND topic = ?", Integer.class,
+                user.getId(), quizBank.topic(0));
+        assertThat(rows).containsExactly(answers);
+        assertThat(quizService.topics(user.getUsername(), null).get(0).answered()).isEqualTo(answers);
+    }
+
+    private static void assertNoRepeats(List<Integer> served, int window) {
+        for (int i = 0; i < served.size(); i++) {
+            for (int back = 1; back <= window && back <= i; back++) {
+                assertThat(served.get(i)).as("draw %d repeats draw %d", i, i - back).isNotEqualTo(served.get(i - back));
+            }
+        }
+    }
+}
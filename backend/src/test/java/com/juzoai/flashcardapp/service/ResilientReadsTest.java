@@ -0,0 +1,165 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.invalidation.Invalidation;
+
+@SpringBootTest(classes = FlashcardApplication.class)
+class ResilientReadsTest {
+
+    private static final long BUDGET_MS = 100;
+    private static final long OPEN_MS = 300;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ResilientReads resilientReads;
+
+    @AfterEach
+    void shutdown() {
+        if (resilientReads != null) {
+            resilientReads.shutdown();
+        }
+    }
+
+    @Test
+    void failingDatabaseOpensTheBreakerAndReadsGetTheirSnapshot() throws Exception {
+        resilientReads = newResilientReads();
+        assertThat(resilientReads.read("deck:1", () -> "v1").stale()).isFalse();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> resilientReads.read("deck:2", failing()))
+                    .isInstanceOf(ResilientReads.UnavailableException.class);
+        }
+        assertThat(resilientReads.getBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // While open the database is not asked at all
+        ResilientReads.Read<String> stale = resilientReads.read("deck:1", failing());
+        assertThat(stale.value()).isEqualTo("v1");
+        assertThat(stale.stale()).isTrue();
+        assertThat(stale.headers().getFirst(HttpHeaders.AGE)).isNotNull();
+        assertThat(stale.headers().containsKey(HttpHeaders.WARNING)).isFalse();
+        assertThatThrownBy(() -> resilientReads.read("deck:3", () -> "never"))
+                .isInstanceOfSatisfying(ResilientReads.UnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+
+        // After open-ms one trial read goes through and closes the breaker
+        Thread.sleep(OPEN_MS + 50);
+        ResilientReads.Read<String> probe = resilientReads.read("deck:1", () -> "v2");
+        assertThat(probe.value()).isEqualTo("v2");
+        assertThat(probe.stale()).isFalse();
+        assertThat(resilientReads.getBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowReadGetsTheSnapshotAndRefreshesItInTheBackground() throws Exception {
+        resilientReads = newResilientReads();
+        resilientReads.read("deck-cards:5", () -> "old");
+
+        long start = System.nanoTime();
+        ResilientReads.Read<String> read = resilientReads.read("deck-cards:5", () -> {
+            sleep(400);
+            return "new";
+        });
+        assertThat(read.value()).isEqualTo("old");
+        assertThat(read.stale()).isTrue();
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(400);
+
+        // Once the slow load is done its result is the snapshot served on failure
+        Thread.sleep(600);
+        assertThat(resilientReads.read("deck-cards:5", failing()).value()).isEqualTo("new");
+
+        // A write to the deck drops the snapshot instead of letting it be served again
+        resilientReads.invalidate(new Invalidation(Invalidation.Kind.DECK_CARDS, 5, 0), false);
+        assertThatThrownBy(() -> resilientReads.read("deck-cards:5", failing()))
+                .isInstanceOf(ResilientReads.UnavailableException.class);
+    }
+
+    @Test
+    void slowReadWithoutASnapshotFailsFastAndLeavesOneBehind() throws Exception {
+        resilientReads = newResilientReads();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> resilientReads.read("deck:7", () -> {
+            sleep(400);
+            return "loaded";
+        })).isInstanceOfSatisfying(ResilientReads.UnavailableException.class,
+                e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1));
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(400);
+
+        // The load carried on in the background
+        Thread.sleep(600);
+        ResilientReads.Read<String> read = resilientReads.read("deck:7", failing());
+        assertThat(read.value()).isEqualTo("loaded");
+        assertThat(read.stale()).isTrue();
+    }
+
+    @Test
+    void burstOnAHealthyDatabaseIsAnsweredFreshWithoutQueueingOnePerCaller() throws Exception {
+        resilientReads = newResilientReads();
+        int decks = 40;
+        for (int deck = 0; deck < decks; deck++) {
+            resilientReads.read("deck:" + deck, () -> "old");
+        }
+
+        // Far more callers than the 2 refresh threads, on one hot deck and on many decks
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<ResilientReads.Read<String>>> reads = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String key = "deck:" + (i % 2 == 0 ? 0 : i % decks);
+                reads.add(callers.submit(() -> resilientReads.read(key, () -> {
+                    loads.incrementAndGet();
+                    sleep(20);
+                    return "new";
+                })));
+            }
+            for (Future<ResilientReads.Read<String>> read : reads) {
+                assertThat(read.get().value()).isEqualTo("new");
+                assertThat(read.get().stale()).isFalse();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(loads.get()).isLessThan(200);
+        assertThat(resilientReads.getBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private ResilientReads newResilientReads() {
+        return new ResilientReads(new SingleFlight(transactionManager, true, 5000), true, BUDGET_MS, 100,
+                3_600_000, 2, 10, 4, 0.5, 0.8, OPEN_MS);
+    }
+
+    private static Supplier<String> failing() {
+        return () -> {
+            throw new DataAccessResourceFailureException("Connection is not available, request timed out");
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.juzoai.flashcardapp.FlashcardApplication;
+
+@SpringBootTest(classes = FlashcardApplication.class)
+class SingleFlightTest {
+
+    private static final int CALLERS = 32;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void burstOfIdenticalReadsRunsOneLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(transactionManager, true, 5000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(CALLERS);
+
+        List<Object> results = inParallel(() -> {
+            arrived.countDown();
+            return singleFlight.load("deck:1", () -> {
+                loads.incrementAndGet();
+                await(arrived);
+                sleep(200);
+                return List.of("card");
+            });
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).isSameAs(results.get(0)));
+        assertThat(singleFlight.getStats())
+                .containsEntry("loads", 1L)
+                .containsEntry("joined", (long) CALLERS - 1)
+                .containsEntry("inFlight", 0);
+
+        // Nothing is cached once the load is done
+        singleFlight.load("deck:1", loads::incrementAndGet);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void callersStopWaitingForAStuckLoadAfterTheTimeout() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(transactionManager, true, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch leading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> stuck = executor.submit(() -> singleFlight.load("deck:2", () -> {
+                leading.countDown();
+                await(release);
+                return "late";
+            }));
+            await(leading);
+
+            assertThat(singleFlight.load("deck:2", () -> "own")).isEqualTo("own");
+            assertThat(singleFlight.getStats()).containsEntry("timeouts", 1L);
+
+            release.countDown();
+            assertThat(stuck.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedLoadFailsEveryWaitingCaller() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(transactionManager, true, 5000);
+        CountDownLatch arrived = new CountDownLatch(CALLERS);
+
+        List<Object> results = inParallel(() -> {
+            arrived.countDown();
+            try {
+                return singleFlight.load("deck:3", () -> {
+                    await(arrived);
+                    sleep(200);
+                    throw new IllegalStateException("database down");
+                });
+            } catch (IllegalStateException e) {
+                return e.getMessage();
+            }
+        });
+
+        assertThat(results).hasSize(CALLERS).containsOnly("database down");
+        assertThat(singleFlight.getStats()).containsEntry("failures", 1L);
+        assertThatThrownBy(() -> singleFlight.load("deck:3", () -> {
+            throw new IllegalArgumentException("again");
+        })).hasMessage("again");
+    }
+
+    private static List<Object> inParallel(Callable<Object> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(call));
+            }
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.juzoai.flashcardapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.UserRepository;
+
+@SpringBootTest(classes = FlashcardApplication.class)
+@AutoConfigureMockMvc
+class SuggestServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void trieKeepsTheBestSuggestionsOfEachPrefix() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        SuggestionTrie.Suggestion spanish = deck(1, "spanish verbs", 0);
+        SuggestionTrie.Suggestion spain = deck(2, "spain", 3);
+        SuggestionTrie.Suggestion spanner = deck(3, "spanner sizes", 1);
+        trie.add("spanish verbs", spanish);
+        trie.add("verbs", spanish);
+        trie.add("spain", spain);
+        trie.add("spanner sizes", spanner);
+        trie.add("sizes", spanner);
+
+        assertThat(trie.top("spa")).containsExactly(spain, spanner);
+        assertThat(trie.top("span")).containsExactly(spanner, spanish);
+        assertThat(trie.top("s")).containsExactly(spain, spanner);
+        assertThat(trie.top("verb")).containsExactly(spanish);
+        assertThat(trie.top("spanx")).isEmpty();
+
+        trie.remove("spain", spain);
+        trie.remove("spanner sizes", spanner);
+        trie.remove("sizes", spanner);
+        assertThat(trie.top("s")).containsExactly(spanish);
+        assertThat(trie.size()).isEqualTo(2);
+    }
+
+    @Test
+    void suggestionsComeFromTheUsersAndThePublicDecks() throws Exception {
+        String word = token();
+        User user = newUser();
+        long ownId = createDeck("Spanish " + word + " verbs", user).get("id").asLong();
+        long publicId = createDeck("Public " + word, null).get("id").asLong();
+        long otherUsersId = createDeck(word + " of someone else", newUser()).get("id").asLong();
+        long cardId = createCard(ownId, "The " + word + "ado is irregular").get("id").asLong();
+
+        String prefix = word.substring(0, word.length() - 2);
+        assertThat(ids(suggest(prefix, user.getId())))
+                .containsExactlyInAnyOrder("deck:" + ownId, "deck:" + publicId, "card:" + cardId);
+        assertThat(ids(suggest(prefix, null))).containsExactly("deck:" + publicId);
+        assertThat(ids(suggest(word + "ado", user.getId()))).containsExactly("card:" + cardId);
+        assertThat(ids(suggest(prefix, null))).doesNotContain("deck:" + otherUsersId);
+    }
+
+    @Test
+    void clonedDecksRankFirstAndWritesShowUpAtOnce() throws Exception {
+        String word = token();
+        long plainId = createDeck(word + " basics", null).get("id").asLong();
+        long popularId = createDeck(word + " advanced", null).get("id").asLong();
+        long cardId = createCard(popularId, word + " question").get("id").asLong();
+        String plain = "deck:" + plainId;
+        String popular = "deck:" + popularId;
+        String card = "card:" + cardId;
+        assertThat(ids(suggest(word, null))).containsExactly(plain, popular, card);
+
+        User user = newUser();
+        mockMvc.perform(post("/api/decks/" + popularId + "/clone").param("userId", user.getId().toString()))
+                .andExpect(status().isCreated());
+        JsonNode ranked = suggest(word, null);
+        assertThat(ids(ranked)).containsExactly(popular, card, plain);
+        assertThat(ranked.get(0).get("popularity").asInt()).isEqualTo(1);
+
+        perform(put("/api/decks/" + plainId), Map.of("title", "Renamed " + word.toUpperCase(), "description", ""))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/decks/" + popularId + "/flashcards/" + cardId))
+                .andExpect(status().isNoContent());
+        assertThat(ids(suggest(word, null))).containsExactly(popular, plain);
+        assertThat(ids(suggest("renamed " + word, null))).containsExactly(plain);
+
+        // A rebuild from the database gives the same answers
+        suggestService.rebuild();
+        JsonNode rebuilt = suggest(word, null);
+        assertThat(ids(rebuilt)).containsExactly(popular, plain);
+        assertThat(rebuilt.get(0).get("popularity").asInt()).isEqualTo(1);
+
+        mockMvc.perform(delete("/api/decks/" + popularId)).andExpect(status().isAccepted());
+        assertThat(ids(suggest(word, null))).containsExactly(plain);
+    }
+
+    private JsonNode suggest(String q, Long userId) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/decks/suggest").param("q", q);
+        if (userId != null) {
+            request.param("userId", userId.toString());
+        }
+        String json = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private JsonNode createDeck(String title, User user) throws Exception {
+        Map<String, Object> deck = new HashMap<>(Map.of("title", title, "description", ""));
+        if (user != null) {
+            deck.put("user", Map.of("id", user.getId()));
+        }
+        return read(perform(post("/api/decks"), deck).andExpect(status().isCreated()));
+    }
+
+    private JsonNode createCard(long deckId, String front) throws Exception {
+        return read(perform(post("/api/decks/" + deckId + "/flashcards"), Map.of("front", front, "back", "answer"))
+                .andExpect(status().isCreated()));
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)));
+    }
+
+    private JsonNode read(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+
+    // Deck and card ids may coincide, so results are compared by type and id
+    private static List<String> ids(JsonNode suggestions) {
+        List<String> ids = new ArrayList<>();
+        suggestions.forEach(suggestion -> ids.add(suggestion.get("type").asText() + ":" + suggestion.get("id").asLong()));
+        return ids;
+    }
+
+    private static SuggestionTrie.Suggestion deck(long id, String title, int popularity) {
+        return new SuggestionTrie.Suggestion(SuggestionTrie.Type.DECK, id, id, title, popularity);
+    }
+
+    // A word no other test's decks contain
+    private static String token() {
+        return "zq" + Long.toString(System.nanoTime(), 36);
+    }
+
+    private User newUser() {
+        return userRepository.save(new User("suggest-" + System.nanoTime(), System.nanoTime() + "@example.com", "test"));
+    }
+}
@@ -0,0 +1,289 @@
+package com.juzoai.flashcardapp.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzoai.flashcardapp.FlashcardApplication;
+import com.juzoai.flashcardapp.model.User;
+import com.juzoai.flashcardapp.repository.UserRepository;
+import com.juzoai.flashcardapp.service.PurgeService;
+
+// Runs the application against three in-memory H2 databases (the "sharded" profile)
+@SpringBootTest(classes = FlashcardApplication.class)
+@ActiveProfiles("sharded")
+@AutoConfigureMockMvc
+class ShardingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardTopology topology;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private PurgeService purgeService;
+
+    @Test
+    void ringSpreadsUsersOverEveryShardAndIsStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        Map<String, Long> counts = new HashMap<>();
+        LongStream.range(1, 3001).forEach(id -> counts.merge(ring.nodeFor(id), 1L, Long::sum));
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allMatch(count -> count > 600);
+
+        // Adding a node only takes keys from the existing ones
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("a", "b", "c", "d"), 64);
+        long moved = LongStream.range(1, 3001)
+                .filter(id -> !grown.nodeFor(id).equals(ring.nodeFor(id)))
+                .peek(id -> assertThat(grown.nodeFor(id)).isEqualTo("d"))
+                .count();
+        assertThat(moved).isBetween(300L, 1200L);
+    }
+
+    @Test
+    void decksAreStoredOnTheirOwnersShardAndListedAcrossShards() throws Exception {
+        Set<String> used = new HashSet<>();
+        Set<Long> created = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            User user = newUser();
+            long deckId = createDeck(user, "Deck " + i);
+            created.add(deckId);
+
+            String shard = directory.shardForUser(user.getId());
+            used.add(shard);
+            assertThat(topology.originOf(deckId)).isEqualTo(shard);
+            assertThat(count(shard, "SELECT COUNT(*) FROM decks WHERE id = ?", deckId)).isEqualTo(1);
+
+            addCard(deckId, "front " + i);
+            JsonNode cards = read(get("/api/decks/" + deckId + "/flashcards"));
+            assertThat(cards).hasSize(1);
+            assertThat(cards.get(0).get("front").asText()).isEqualTo("front " + i);
+        }
+        assertThat(used).hasSizeGreaterThan(1);
+
+        Set<Long> listed = new HashSet<>();
+        read(get("/api/decks")).forEach(deck -> listed.add(deck.get("id").asLong()));
+        assertThat(listed).containsAll(created);
+    }
+
+    @Test
+    void clonesOnOtherShardsAreListedWithTheClonersDecks() throws Exception {
+        User owner = newUser();
+        User cloner = newUser();
+        while (directory.shardForUser(cloner.getId()).equals(directory.shardForUser(owner.getId()))) {
+            cloner = newUser();
+        }
+        long sourceId = createDeck(owner, "Shared deck");
+        long ownId = createDeck(cloner, "Own deck");
+        long cloneId = read(post("/api/decks/" + sourceId + "/clone").param("userId", cloner.getId().toString()))
+                .get("id").asLong();
+        assertThat(topology.originOf(cloneId)).isEqualTo(directory.shardForUser(owner.getId()));
+
+        Set<Long> listed = new HashSet<>();
+        read(get("/api/decks/user/" + cloner.getId())).forEach(deck -> listed.add(deck.get("id").asLong()));
+        assertThat(listed).containsExactlyInAnyOrder(ownId, cloneId);
+        assertThat(read(get("/api/decks/user/" + owner.getId()))).hasSize(1);
+    }
+
+    @Test
+    @WithMockUser
+    void movingAUserKeepsTheirDecksAndCardsReachable() throws Exception {
+        User owner = newUser();
+        long deckId = createDeck(owner, "Moving deck");
+        long cardId = addCard(deckId, "kept id");
+        String source = directory.shardForUser(owner.getId());
+        String target = topology.getNames().stream().filter(name -> !name.equals(source)).findFirst().orElseThrow();
+
+        // Another user's clone of the deck stays behind as a standalone deck
+        User reader = newUser();
+        long cloneId = read(post("/api/decks/" + deckId + "/clone").param("userId", reader.getId().toString()))
+                .get("id").asLong();
+        assertThat(topology.originOf(cloneId)).isEqualTo(source);
+
+        ShardRebalancer.MoveResult result = rebalancer.moveUser(owner.getId(), target);
+        assertThat(result.decksMoved()).isEqualTo(1);
+        assertThat(result.cardsMoved()).isEqualTo(1);
+
+        assertThat(directory.shardForUser(owner.getId())).isEqualTo(target);
+        assertThat(directory.shardForDeck(deckId)).isEqualTo(target);
+        assertThat(count(source, "SELECT COUNT(*) FROM decks WHERE id = ?", deckId)).isZero();
+        assertThat(count(target, "SELECT COUNT(*) FROM flashcards WHERE id = ?", cardId)).isEqualTo(1);
+
+        assertThat(read(get("/api/decks/user/" + owner.getId()))).hasSize(1);
+        assertThat(read(get("/api/decks/" + deckId + "/flashcards")).get(0).get("id").asLong()).isEqualTo(cardId);
+        assertThat(read(get("/api/flashcards/" + cardId)).get("front").asText()).isEqualTo("kept id");
+        assertThat(read(get("/api/decks/" + cloneId + "/flashcards")).get(0).get("front").asText())
+                .isEqualTo("kept id");
+
+        // New decks follow the user, and the placement survives a reload from the home shard
+        long newDeck = createDeck(owner, "After move");
+        assertThat(topology.originOf(newDeck)).isEqualTo(target);
+        directory.reload();
+        assertThat(directory.shardForDeck(deckId)).isEqualTo(target);
+
+        // Running the move again is a no-op
+        assertThat(rebalancer.moveUser(owner.getId(), target).decksMoved()).isZero();
+    }
+
+    @Test
+    void writeDuringAnotherInstancesMoveWaitsAndFollowsTheDeck() throws Exception {
+        User owner = newUser();
+        long deckId = createDeck(owner, "Moved elsewhere");
+        addCard(deckId, "before");
+        String source = directory.shardForUser(owner.getId());
+        String target = topology.getNames().stream().filter(name -> !name.equals(source)).findFirst().orElseThrow();
+
+        // Another instance moves the deck: it holds the row lock on the source shard while copying
+        try (Connection moving = topology.getDataSources().get(source).getConnection()) {
+            moving.setAutoCommit(false);
+            execute(moving, "SELECT id FROM decks WHERE id = ? FOR UPDATE", deckId);
+
+            ExecutorService writer = Executors.newSingleThreadExecutor();
+            try {
+                Future<Long> added = writer.submit(() -> addCard(deckId, "during"));
+                Thread.sleep(300);
+                assertThat(added.isDone()).isFalse();
+
+                JdbcTemplate targetJdbc = new JdbcTemplate(topology.getDataSources().get(target));
+                if (count(target, "SELECT COUNT(*) FROM users WHERE id = ?", owner.getId()) == 0) {
+                    targetJdbc.update("INSERT INTO users (id, username, email) VALUES (?, ?, ?)",
+                            owner.getId(), owner.getUsername(), owner.getEmail());
+                }
+                targetJdbc.update("INSERT INTO decks (id, title, user_id, card_count) VALUES (?, ?, ?, 1)",
+                        deckId, "Moved elsewhere", owner.getId());
+                targetJdbc.update("INSERT INTO flashcards (deck_id, front, back, deleted) VALUES (?, 'before', 'back', FALSE)",
+                        deckId);
+                // The placement is only in the database; this instance has not heard of the move
+                new JdbcTemplate(topology.getDataSources().get(topology.home()))
+                        .update("INSERT INTO deck_relocations (deck_id, shard) VALUES (?, ?)", deckId, target);
+                execute(moving, "DELETE FROM flashcards WHERE deck_id = ?", deckId);
+                execute(moving, "DELETE FROM decks WHERE id = ?", deckId);
+                moving.commit();
+
+                long cardId = added.get(10, TimeUnit.SECONDS);
+                assertThat(count(target, "SELECT COUNT(*) FROM flashcards WHERE id = ?", cardId)).isEqualTo(1);
+                assertThat(count(source, "SELECT COUNT(*) FROM flashcards WHERE deck_id = ?", deckId)).isZero();
+                assertThat(directory.shardForDeck(deckId)).isEqualTo(target);
+            } finally {
+                writer.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void deletedUserIsPurgedFromEveryShard() throws Exception {
+        User owner = newUser();
+        while (directory.shardForUser(owner.getId()).equals(topology.home())) {
+            owner = newUser();
+        }
+        String shard = directory.shardForUser(owner.getId());
+        long deckId = createDeck(owner, "Purged deck");
+        addCard(deckId, "purged");
+        assertThat(count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", owner.getId())).isEqualTo(1);
+
+        read(delete("/api/users/" + owner.getId()).with(user(owner.getUsername())));
+        assertThat(read(get("/api/decks/user/" + owner.getId()))).isEmpty();
+
+        purgeService.runPendingJobs();
+
+        assertThat(count(shard, "SELECT COUNT(*) FROM flashcards WHERE deck_id = ?", deckId)).isZero();
+        assertThat(count(shard, "SELECT COUNT(*) FROM decks WHERE id = ?", deckId)).isZero();
+        assertThat(count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", owner.getId())).isZero();
+        assertThat(count(topology.home(), "SELECT COUNT(*) FROM users WHERE id = ?", owner.getId())).isZero();
+        assertThat(count(topology.home(), "SELECT status = 'DONE' FROM purge_jobs WHERE target_id = ?",
+                owner.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void onlyAdminsCanMoveUsers() throws Exception {
+        User owner = newUser();
+        String source = directory.shardForUser(owner.getId());
+        String target = topology.getNames().stream().filter(name -> !name.equals(source)).findFirst().orElseThrow();
+
+        mockMvc.perform(post("/api/admin/shards/users/" + owner.getId() + "/move").param("target", target)
+                        .with(user(owner.getUsername())))
+                .andExpect(status().isForbidden());
+        assertThat(directory.shardForUser(owner.getId())).isEqualTo(source);
+
+        mockMvc.perform(post("/api/admin/shards/users/" + owner.getId() + "/move").param("target", target)
+                        .with(user("shard-operator").roles("ADMIN")))
+                .andExpect(status().isOk());
+        assertThat(directory.shardForUser(owner.getId())).isEqualTo(target);
+    }
+
+    private User newUser() {
+        long n = System.nanoTime();
+        return userRepository.save(new User("shard-" + n, n + "@example.com", "test"));
+    }
+
+    private long createDeck(User user, String title) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("title", title, "user", Map.of("id", user.getId())));
+        return read(post("/api/decks").contentType(MediaType.APPLICATION_JSON).content(body)).get("id").asLong();
+    }
+
+    private long addCard(long deckId, String front) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("front", front, "back", "back"));
+        return read(post("/api/decks/" + deckId + "/flashcards").contentType(MediaType.APPLICATION_JSON).content(body))
+                .get("id").asLong();
+    }
+
+    private JsonNode read(RequestBuilder request) throws Exception {
+        String json = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(json);
+    }
+
+    private static void execute(Connection connection, String sql, long id) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, id);
+            statement.execute();
+        }
+    }
+
+    private int count(String shard, String sql, Object... args) {
+        return new JdbcTemplate(topology.getDataSources().get(shard)).queryForObject(sql, Integer.class, args);
+    }
+}
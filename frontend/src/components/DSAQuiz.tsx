@@ -20,19 +20,27 @@ import {
   useTheme,
 } from '@mui/material';
 import { useNavigate } from 'react-router-dom';
-import { DSA_QUIZZES } from '../data/dsaQuizzes';
+import quizService from '../services/quizService';
 import { QuizQuestion, QuizTopic } from '../types/quiz';
 import CheckCircleOutlineIcon from '@mui/icons-material/CheckCircleOutline';
 import CancelOutlinedIcon from '@mui/icons-material/CancelOutlined';
 
+// Sentinel topic for quizzes that let the backend choose topics by weakness
+const ADAPTIVE_TOPIC = '__adaptive__';
+const ADAPTIVE_QUIZ_LENGTH = 10;
+
 const DSAQuiz: React.FC = () => {
   const theme = useTheme();
   const isMobile = useMediaQuery(theme.breakpoints.down('sm'));
   const isTablet = useMediaQuery(theme.breakpoints.between('sm', 'md'));
 
+  const [topics, setTopics] = useState<QuizTopic[]>([]);
   const [currentTopic, setCurrentTopic] = useState<string>("");
+  const [quizLength, setQuizLength] = useState(0);
+  const [questions, setQuestions] = useState<QuizQuestion[]>([]);
   const [currentQuestionIndex, setCurrentQuestionIndex] = useState(0);
   const [selectedAnswer, setSelectedAnswer] = useState<number | null>(null);
+  const [correctAnswer, setCorrectAnswer] = useState<number | null>(null);
   const [score, setScore] = useState(0);
   const [showResult, setShowResult] = useState(false);
   const [quizCompleted, setQuizCompleted] = useState(false);
@@ -40,60 +48,106 @@ const DSAQuiz: React.FC = () => {
   const [isCorrect, setIsCorrect] = useState(false);
   const [answeredQuestions, setAnsweredQuestions] = useState<boolean[]>([]);
   const [correctAnswers, setCorrectAnswers] = useState<boolean[]>([]);
+  const [error, setError] = useState<string | null>(null);
   const navigate = useNavigate();
 
-  const currentTopicQuestions = DSA_QUIZZES.find(topic => topic.name === currentTopic)?.questions || [];
-  const currentQuestion = currentTopicQuestions[currentQuestionIndex];
+  const currentQuestion = questions[currentQuestionIndex];
+
+  // Topic weights change as questions are answered, so refresh when returning to the topic list
+  useEffect(() => {
+    if (currentTopic) {
+      return;
+    }
+    quizService.getTopics()
+      .then(response => setTopics(response.data))
+      .catch(() => setError('Could not load quiz topics. Please try again later.'));
+  }, [currentTopic]);
+
+  const loadNextQuestion = async (topic: string) => {
+    const response = await quizService.getNextQuestion(topic === ADAPTIVE_TOPIC ? undefined : topic);
+    setQuestions(previous => [...previous, response.data]);
+  };
 
   const handleAnswerSelect = (event: React.ChangeEvent<HTMLInputElement>) => {
     setSelectedAnswer(Number(event.target.value));
   };
 
-  const handleCheckAnswer = () => {
-    const correct = selectedAnswer === currentQuestion.correctAnswer;
-    setIsCorrect(correct);
-    setShowFeedback(true);
-    
-    // Update the answered questions array
-    const newAnsweredQuestions = [...answeredQuestions];
-    newAnsweredQuestions[currentQuestionIndex] = true;
-    setAnsweredQuestions(newAnsweredQuestions);
-    
-    // Update the correct answers array
-    const newCorrectAnswers = [...correctAnswers];
-    newCorrectAnswers[currentQuestionIndex] = correct;
-    setCorrectAnswers(newCorrectAnswers);
+  const handleCheckAnswer = async () => {
+    if (selectedAnswer === null || !currentQuestion) {
+      return;
+    }
+    try {
+      const { data: result } = await quizService.answer(currentQuestion.id, selectedAnswer);
+      setIsCorrect(result.correct);
+      setCorrectAnswer(result.correctAnswer);
+      setShowFeedback(true);
+
+      // Update the answered questions array
+      const newAnsweredQuestions = [...answeredQuestions];
+      newAnsweredQuestions[currentQuestionIndex] = true;
+      setAnsweredQuestions(newAnsweredQuestions);
+
+      // Update the correct answers array
+      const newCorrectAnswers = [...correctAnswers];
+      newCorrectAnswers[currentQuestionIndex] = result.correct;
+      setCorrectAnswers(newCorrectAnswers);
+    } catch (err) {
+      setError('Could not check your answer. Please try again.');
+    }
   };
 
-  const handleNextQuestion = () => {
+  const handleNextQuestion = async () => {
     if (isCorrect) {
       setScore(score + 1);
     }
 
     setShowFeedback(false);
+    setCorrectAnswer(null);
 
-    if (currentQuestionIndex < currentTopicQuestions.length - 1) {
-      setCurrentQuestionIndex(currentQuestionIndex + 1);
-      setSelectedAnswer(null);
+    if (currentQuestionIndex < quizLength - 1) {
+      try {
+        await loadNextQuestion(currentTopic);
+        setCurrentQuestionIndex(currentQuestionIndex + 1);
+        setSelectedAnswer(null);
+      } catch (err) {
+        setError('Could not load the next question. Please try again.');
+      }
     } else {
       setShowResult(true);
       setQuizCompleted(true);
     }
   };
 
-  const handleTopicSelect = (topic: string) => {
+  const handleTopicSelect = async (topic: string) => {
+    const length = topic === ADAPTIVE_TOPIC
+      ? ADAPTIVE_QUIZ_LENGTH
+      : topics.find(t => t.name === topic)?.questionCount || 0;
     setCurrentTopic(topic);
+    setQuizLength(length);
+    setQuestions([]);
     setCurrentQuestionIndex(0);
     setSelectedAnswer(null);
+    setCorrectAnswer(null);
     setScore(0);
     setShowResult(false);
     setQuizCompleted(false);
     setShowFeedback(false);
-    setAnsweredQuestions(Array(DSA_QUIZZES.find(t => t.name === topic)?.questions.length || 0).fill(false));
-    setCorrectAnswers(Array(DSA_QUIZZES.find(t => t.name === topic)?.questions.length || 0).fill(false));
+    setError(null);
+    setAnsweredQuestions(Array(length).fill(false));
+    setCorrectAnswers(Array(length).fill(false));
+    try {
+      await loadNextQuestion(topic);
+    } catch (err) {
+      setError('Could not load quiz questions. Please try again later.');
+    }
   };
 
-  const progress = ((currentQuestionIndex + 1) / currentTopicQuestions.length) * 100;
+  const progress = quizLength ? ((currentQuestionIndex + 1) / quizLength) * 100 : 0;
+  const topicCards = [
+    { name: ADAPTIVE_TOPIC, label: 'Adaptive Practice', detail: `${ADAPTIVE_QUIZ_LENGTH} questions, focused on your weak topics` },
+    ...topics.map(topic => ({ name: topic.name, label: topic.name, detail: `${topic.questionCount} questions` })),
+  ];
+  const topicLabel = currentTopic === ADAPTIVE_TOPIC ? 'Adaptive Practice' : currentTopic;
 
   return (
     <Box sx={{ 
@@ -108,6 +162,12 @@ const DSAQuiz: React.FC = () => {
         DSA Quiz Practice
       </Typography>
 
+      {error && (
+        <Alert severity="error" sx={{ mb: 2 }} onClose={() => setError(null)}>
+          {error}
+        </Alert>
+      )}
+
       {!currentTopic ? (
         <Box sx={{ 
           display: 'flex', 
@@ -115,7 +175,7 @@ const DSAQuiz: React.FC = () => {
           gap: { xs: 1, sm: 1.5, md: 2 },
           justifyContent: { xs: 'center', sm: 'flex-start' }
         }}>
-          {DSA_QUIZZES.map((topic) => (
+          {topicCards.map((topic) => (
             <Card
               key={topic.name}
               sx={{ 
@@ -139,7 +199,7 @@ const DSAQuiz: React.FC = () => {
                     wordBreak: 'break-word'
                   }}
                 >
-                  {topic.name}
+                  {topic.label}
                 </Typography>
                 <Typography 
                   variant="body2" 
@@ -147,7 +207,7 @@ const DSAQuiz: React.FC = () => {
                   align="center"
                   sx={{ fontSize: { xs: '0.75rem', sm: '0.875rem' } }}
                 >
-                  {topic.questions.length} questions
+                  {topic.detail}
                 </Typography>
               </CardContent>
             </Card>
@@ -157,7 +217,7 @@ const DSAQuiz: React.FC = () => {
         <>
           <Paper elevation={3} sx={{ p: { xs: 2, sm: 3 }, mb: 2 }}>
             <Typography variant="h6" gutterBottom>
-              Topic: {currentTopic}
+              Topic: {topicLabel}
             </Typography>
             
             {/* Progress indicators */}
@@ -170,7 +230,7 @@ const DSAQuiz: React.FC = () => {
                 gap: { xs: 0.5, sm: 0 }
               }}>
                 <Typography variant="body2">
-                  Question {currentQuestionIndex + 1} of {currentTopicQuestions.length}
+                  Question {currentQuestionIndex + 1} of {quizLength}
                 </Typography>
                 <Typography variant="body2">
                   Score: {score}/{currentQuestionIndex + (showFeedback && isCorrect ? 1 : 0)}
@@ -191,7 +251,7 @@ const DSAQuiz: React.FC = () => {
                     }
                   }}
                 >
-                  {currentTopicQuestions.map((_, index) => (
+                  {Array.from({ length: quizLength }).map((_, index) => (
                     <Step key={index} completed={answeredQuestions[index]}>
                       <StepLabel 
                         StepIconProps={{
@@ -234,9 +294,9 @@ const DSAQuiz: React.FC = () => {
                         fontSize: { xs: '0.9rem', sm: '1rem' }
                       },
                       ...(showFeedback && {
-                        color: index === currentQuestion.correctAnswer ? 'success.main' : 
+                        color: index === correctAnswer ? 'success.main' : 
                                 (index === selectedAnswer ? 'error.main' : 'inherit'),
-                        fontWeight: index === currentQuestion.correctAnswer ? 'bold' : 'normal'
+                        fontWeight: index === correctAnswer ? 'bold' : 'normal'
                       })
                     }}
                   />
@@ -254,7 +314,7 @@ const DSAQuiz: React.FC = () => {
                   >
                     {isCorrect 
                       ? "Correct! Well done!" 
-                      : `Incorrect. The correct answer is: ${currentQuestion.options[currentQuestion.correctAnswer]}`}
+                      : `Incorrect. The correct answer is: ${correctAnswer !== null ? currentQuestion.options[correctAnswer] : ''}`}
                   </Alert>
                 </Box>
               </Fade>
@@ -284,7 +344,7 @@ const DSAQuiz: React.FC = () => {
                   color="primary"
                   fullWidth={isMobile}
                 >
-                  {currentQuestionIndex < currentTopicQuestions.length - 1 ? 'Next Question' : 'Finish Quiz'}
+                  {currentQuestionIndex < quizLength - 1 ? 'Next Question' : 'Finish Quiz'}
                 </Button>
               )}
               
@@ -305,16 +365,16 @@ const DSAQuiz: React.FC = () => {
                 Quiz Results
               </Typography>
               <Typography variant="body1">
-                Your score: {score} out of {currentTopicQuestions.length}
+                Your score: {score} out of {quizLength}
               </Typography>
               <Typography variant="body1">
-                Percentage: {((score / currentTopicQuestions.length) * 100).toFixed(1)}%
+                Percentage: {((score / quizLength) * 100).toFixed(1)}%
               </Typography>
               
               {!isMobile && (
                 <Box sx={{ mt: 4 }}>
                   <Stepper activeStep={-1} alternativeLabel>
-                    {currentTopicQuestions.map((question, index) => (
+                    {Array.from({ length: quizLength }).map((_, index) => (
                       <Step key={index} completed={answeredQuestions[index]}>
                         <StepLabel 
                           StepIconProps={{
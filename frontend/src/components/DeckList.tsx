@@ -80,7 +80,7 @@ const DeckList: React.FC = () => {
       
       // Fetch flashcards for this deck
       const response = await deckService.getFlashcards(deck.id);
-      const flashcards = response.data;
+      const flashcards = await Promise.all(response.data.map(deckService.withFullContent));
       
       // Export the deck with its flashcards
       await exportDeck(deck, flashcards);
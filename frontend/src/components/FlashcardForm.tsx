@@ -116,8 +116,10 @@ const FlashcardForm: React.FC = () => {
     }
   };
 
-  const handleEditCard = (card: Flashcard) => {
-    setFlashcard({ front: card.front, back: card.back });
+  const handleEditCard = async (card: Flashcard) => {
+    // Edit the full text, not the list preview
+    const fullCard = await deckService.withFullContent(card);
+    setFlashcard({ front: fullCard.front, back: fullCard.back });
     setEditingCardId(card.id ?? null);
     setError('');
     setSuccess('');
@@ -114,6 +114,27 @@ const FlashcardStudy: React.FC = () => {
     fetchCards();
   }, [deckId]);
 
+  useEffect(() => {
+    // Large sides arrive as previews; load the full text of the card being studied
+    const card = studyState.cards[studyState.currentIndex];
+    if (!card || (!card.frontHash && !card.backHash)) return;
+
+    let cancelled = false;
+    deckService.withFullContent(card)
+      .then(fullCard => {
+        if (cancelled) return;
+        setStudyState(prev => ({
+          ...prev,
+          cards: prev.cards.map(c => (c === card ? fullCard : c))
+        }));
+      })
+      .catch(error => console.error('Error loading card content:', error));
+
+    return () => {
+      cancelled = true;
+    };
+  }, [studyState.cards, studyState.currentIndex]);
+
   useEffect(() => {
     // Update username when user changes
     if (user?.username) {
@@ -20,19 +20,8 @@ import {
 import Grid from '@mui/material/Grid';
 import { useNavigate } from 'react-router-dom';
 import CasinoIcon from '@mui/icons-material/Casino';
-
-interface PracticeProblem {
-  id: number;
-  title: string;
-  difficulty: 'Easy' | 'Medium' | 'Hard';
-  submissions?: number;
-  successRate?: number;
-  likes?: number;
-  path: string;
-  category: string;
-  isBlind75: boolean;
-  implemented?: boolean;
-}
+import quizService from '../services/quizService';
+import { PracticeProblem } from '../types/quiz';
 
 const ProblemRoulette: React.FC = () => {
   const theme = useTheme();
@@ -49,41 +38,14 @@ const ProblemRoulette: React.FC = () => {
   const [difficultyFilter, setDifficultyFilter] = useState('All');
   const [categoryFilter, setCategoryFilter] = useState('All');
 
-  // Blind 75 Problems List (same as in Problems.tsx)
-  const practiceProblems: PracticeProblem[] = [
-    // Arrays & Hashing
-    { id: 1, title: 'Two Sum', difficulty: 'Easy', submissions: 35100, successRate: 100, likes: 98, path: 'two-sum', category: 'Arrays & Hashing', isBlind75: true, implemented: true },
-    { id: 2, title: 'Contains Duplicate', difficulty: 'Easy', submissions: 16700, successRate: 99, likes: 97, path: 'contains-duplicate', category: 'Arrays & Hashing', isBlind75: true, implemented: true },
-    { id: 3, title: 'Valid Anagram', difficulty: 'Easy', submissions: 14700, successRate: 99, likes: 99, path: 'valid-anagram', category: 'Arrays & Hashing', isBlind75: true, implemented: true },
-    { id: 4, title: 'Group Anagrams', difficulty: 'Medium', submissions: 4200, successRate: 96, likes: 95, path: 'group-anagrams', category: 'Arrays & Hashing', isBlind75: true, implemented: false },
-    { id: 5, title: 'Top K Frequent Elements', difficulty: 'Medium', submissions: 5400, successRate: 96, likes: 94, path: 'top-k-frequent', category: 'Arrays & Hashing', isBlind75: true, implemented: false },
-    
-    // Two Pointers
-    { id: 10, title: 'Valid Palindrome', difficulty: 'Easy', submissions: 6100, successRate: 100, likes: 96, path: 'valid-palindrome', category: 'Two Pointers', isBlind75: true, implemented: true },
-    
-    // Sliding Window
-    { id: 15, title: 'Best Time to Buy and Sell Stock', difficulty: 'Easy', submissions: 5100, successRate: 100, likes: 98, path: 'best-time-to-buy-sell-stock', category: 'Sliding Window', isBlind75: true, implemented: true },
-    
-    // Stack
-    { id: 19, title: 'Valid Parentheses', difficulty: 'Easy', submissions: 4000, successRate: 100, likes: 99, path: 'valid-parentheses', category: 'Stack', isBlind75: true, implemented: true },
-    
-    // Binary Search
-    { id: 26, title: 'Binary Search', difficulty: 'Easy', submissions: 7900, successRate: 99, likes: 98, path: 'binary-search', category: 'Binary Search', isBlind75: true, implemented: true },
-    
-    // Linked List
-    { id: 30, title: 'Reverse Linked List', difficulty: 'Easy', submissions: 8700, successRate: 98, likes: 99, path: 'reverse-linked-list', category: 'Linked List', isBlind75: true, implemented: true },
-    { id: 31, title: 'Merge Two Sorted Lists', difficulty: 'Easy', submissions: 2500, successRate: 100, likes: 98, path: 'merge-two-lists', category: 'Linked List', isBlind75: true, implemented: true },
-    
-    // Trees
-    { id: 34, title: 'Invert Binary Tree', difficulty: 'Easy', submissions: 9800, successRate: 99, likes: 100, path: 'invert-binary-tree', category: 'Trees', isBlind75: true, implemented: true },
-    { id: 35, title: 'Maximum Depth of Binary Tree', difficulty: 'Easy', submissions: 9500, successRate: 100, likes: 99, path: 'max-depth-binary-tree', category: 'Trees', isBlind75: true, implemented: true },
-    { id: 36, title: 'Same Tree', difficulty: 'Easy', submissions: 1900, successRate: 100, likes: 96, path: 'same-tree', category: 'Trees', isBlind75: true, implemented: true },
-    
-    // Math
-    { id: 39, title: 'Palindrome Number', difficulty: 'Easy', submissions: 1600, successRate: 97, likes: 92, path: 'palindrome-number', category: 'Math', isBlind75: false, implemented: true },
-    { id: 40, title: 'Fizz Buzz', difficulty: 'Easy', submissions: 1400, successRate: 98, likes: 91, path: 'fizz-buzz', category: 'Math', isBlind75: false, implemented: true },
-    { id: 41, title: 'Roman to Integer', difficulty: 'Easy', submissions: 1100, successRate: 95, likes: 90, path: 'roman-to-integer', category: 'Math', isBlind75: false, implemented: true },
-  ];
+  const [practiceProblems, setPracticeProblems] = useState<PracticeProblem[]>([]);
+
+  // The problem list is served by the backend, which also picks the spin result
+  useEffect(() => {
+    quizService.getProblems()
+      .then(response => setPracticeProblems(response.data))
+      .catch(() => setPracticeProblems([]));
+  }, []);
 
   const getDifficultyColor = (difficulty: string): string => {
     switch(difficulty) {
@@ -586,7 +548,7 @@ const ProblemRoulette: React.FC = () => {
     setSelectedProblem(null);
   }, []);
 
-  const spinWheel = () => {
+  const spinWheel = async () => {
     if (spinning || !wheelRef.current || filteredProblems.length === 0) {
       return;
     }
@@ -594,14 +556,24 @@ const ProblemRoulette: React.FC = () => {
     setSpinning(true);
     setSelectedProblem(null);
 
+    // The backend picks the problem so recent spins are not repeated
+    let randomIndex = -1;
+    try {
+      const { data: picked } = await quizService.spinProblem(difficultyFilter, categoryFilter, blind75Only);
+      randomIndex = filteredProblems.findIndex(p => p.id === picked.id);
+    } catch (err) {
+      randomIndex = -1;
+    }
+    if (randomIndex < 0 || !wheelRef.current) {
+      setSpinning(false);
+      return;
+    }
+    const selectedProblem = filteredProblems[randomIndex];
+
     // Remove any previously highlighted cards
     const highlightedCards = wheelRef.current.querySelectorAll('.highlighted');
     highlightedCards.forEach(card => card.classList.remove('highlighted'));
 
-    // Select a random problem from the filtered list
-    const randomIndex = Math.floor(Math.random() * filteredProblems.length);
-    const selectedProblem = filteredProblems[randomIndex];
-
     // Calculate card width (including margins)
     const cardWidth = 81; // 75px + 6px margins
     const totalWidth = cardWidth * filteredProblems.length;
@@ -6,6 +6,11 @@ const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
 // Token storage keys
 const TOKEN_KEY = 'auth_token';
 
+// Returned by the backend after a write; sending it back keeps our reads on the primary
+// database until replicas have caught up with our own changes
+const CONSISTENCY_HEADER = 'X-Consistency-Token';
+const CONSISTENCY_KEY = 'consistency_token';
+
 // Create axios instance with default config
 const api = axios.create({
   baseURL: API_URL,
@@ -28,6 +33,11 @@ api.interceptors.request.use(
     if (token) {
       config.headers.Authorization = `Bearer ${token}`;
     }
+
+    const consistencyToken = sessionStorage.getItem(CONSISTENCY_KEY);
+    if (consistencyToken) {
+      config.headers[CONSISTENCY_HEADER] = consistencyToken;
+    }
     return config;
   },
   (error) => {
@@ -43,6 +53,11 @@ api.interceptors.response.use(
     if (process.env.NODE_ENV === 'development') {
       console.log('API Response:', response.status, response.config.url);
     }
+
+    const consistencyToken = response.headers[CONSISTENCY_HEADER.toLowerCase()];
+    if (consistencyToken) {
+      sessionStorage.setItem(CONSISTENCY_KEY, consistencyToken);
+    }
     return response;
   },
   (error) => {
@@ -12,12 +12,60 @@ export interface Flashcard {
   front: string;
   back: string;
   deckId?: number;
+  // Set when the side is a preview; the full text is fetched by hash
+  frontHash?: string | null;
+  backHash?: string | null;
+  // Set on writes: the owner's other cards this card likely duplicates
+  possibleDuplicates?: number[];
 }
 
+export interface ImportResult {
+  imported: Flashcard[];
+  // Cards left out because they duplicate a card of the deck or an earlier card of the import
+  skipped: { position: number; duplicateOf: number }[];
+}
+
+export interface Attachment {
+  id: number;
+  flashcardId: number;
+  contentType: string;
+  fileName?: string | null;
+  size: number;
+  // Path on the backend server; the file behind it never changes
+  url: string;
+}
+
+export interface Suggestion {
+  type: 'deck' | 'card';
+  id: number;
+  deckId: number;
+  text: string;
+  // How many times the deck has been cloned
+  popularity: number;
+}
+
+// Card bodies are immutable per hash, so they can be cached for the page lifetime
+const bodyCache = new Map<string, Promise<string>>();
+
+const getCardBody = (hash: string): Promise<string> => {
+  let body = bodyCache.get(hash);
+  if (!body) {
+    body = api.get<string>(`/flashcards/bodies/${hash}`, { responseType: 'text' })
+      .then(response => response.data);
+    body.catch(() => bodyCache.delete(hash));
+    bodyCache.set(hash, body);
+  }
+  return body;
+};
+
 const deckService = {
   // Get all decks
   getAll: () => api.get<Deck[]>('/decks'),
   
+  // Deck titles and card fronts with a word starting with the query, from the user's and public decks
+  suggest: (q: string, userId?: number, limit?: number) =>
+    api.get<Suggestion[]>('/decks/suggest', { params: { q, userId, limit } }),
+  
   // Get single deck by ID
   getById: (id: number) => api.get<Deck>(`/decks/${id}`),
   
@@ -37,13 +85,43 @@ const deckService = {
   addFlashcard: (deckId: number, flashcard: Flashcard) => 
     api.post<Flashcard>(`/decks/${deckId}/flashcards`, flashcard),
   
+  // Add many flashcards at once, leaving out near-duplicates unless skipDuplicates is false
+  importFlashcards: (deckId: number, flashcards: Flashcard[], skipDuplicates = true) =>
+    api.post<ImportResult>(`/decks/${deckId}/flashcards/import`, flashcards, { params: { skipDuplicates } }),
+
   // Update a flashcard
   updateFlashcard: (deckId: number, cardId: number, flashcard: Flashcard) => 
     api.put<Flashcard>(`/decks/${deckId}/flashcards/${cardId}`, flashcard),
   
   // Delete a flashcard
   deleteFlashcard: (deckId: number, cardId: number) => 
-    api.delete(`/decks/${deckId}/flashcards/${cardId}`)
+    api.delete(`/decks/${deckId}/flashcards/${cardId}`),
+
+  // Get the attachments of every card in a deck
+  getAttachments: (deckId: number) => api.get<Attachment[]>(`/decks/${deckId}/attachments`),
+
+  // Attach an image or video to a card; the file is sent as the raw request body
+  uploadAttachment: (deckId: number, cardId: number, file: File) =>
+    api.post<Attachment>(`/decks/${deckId}/flashcards/${cardId}/attachments`, file, {
+      params: { fileName: file.name },
+      headers: { 'Content-Type': file.type }
+    }),
+
+  // Remove an attachment from a card
+  deleteAttachment: (deckId: number, cardId: number, id: number) =>
+    api.delete(`/decks/${deckId}/flashcards/${cardId}/attachments/${id}`),
+
+  // Get the full text of a large card side
+  getCardBody,
+
+  // Replace preview sides with their full text
+  withFullContent: async (flashcard: Flashcard): Promise<Flashcard> => {
+    const [front, back] = await Promise.all([
+      flashcard.frontHash ? getCardBody(flashcard.frontHash) : flashcard.front,
+      flashcard.backHash ? getCardBody(flashcard.backHash) : flashcard.back
+    ]);
+    return { ...flashcard, front, back, frontHash: null, backHash: null };
+  }
 };
 
 export default deckService; 
\ No newline at end of file
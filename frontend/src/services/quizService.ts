@@ -0,0 +1,37 @@
+import api from './api';
+import { PracticeProblem, QuizAnswerResult, QuizQuestion, QuizTopic } from '../types/quiz';
+
+// Lets the backend track anonymous learners for the length of the browser session
+const SESSION_KEY = 'quiz_session';
+
+const getQuizSession = (): string => {
+  let session = sessionStorage.getItem(SESSION_KEY);
+  if (!session) {
+    session = Math.random().toString(36).slice(2) + Date.now().toString(36);
+    sessionStorage.setItem(SESSION_KEY, session);
+  }
+  return session;
+};
+
+const withSession = () => ({ headers: { 'X-Quiz-Session': getQuizSession() } });
+
+const quizService = {
+  getTopics: () => api.get<QuizTopic[]>('/quiz/topics', withSession()),
+
+  // Without a topic the backend picks one, favouring the learner's weak topics
+  getNextQuestion: (topic?: string) =>
+    api.get<QuizQuestion>('/quiz/questions/next', { ...withSession(), params: topic ? { topic } : {} }),
+
+  answer: (questionId: number, selectedAnswer: number) =>
+    api.post<QuizAnswerResult>('/quiz/answers', { questionId, selectedAnswer }, withSession()),
+
+  getProblems: () => api.get<PracticeProblem[]>('/quiz/problems'),
+
+  spinProblem: (difficulty: string, category: string, blind75Only: boolean) =>
+    api.get<PracticeProblem>('/quiz/problems/spin', {
+      ...withSession(),
+      params: { difficulty, category, blind75Only },
+    }),
+};
+
+export default quizService;
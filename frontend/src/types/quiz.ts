@@ -1,12 +1,35 @@
+// Questions come from the backend without the correct answer; answers are graded server-side
 export interface QuizQuestion {
   id: number;
   question: string;
   options: string[];
-  correctAnswer: number;
   topic: string;
 }
 
 export interface QuizTopic {
   name: string;
-  questions: QuizQuestion[];
-} 
\ No newline at end of file
+  questionCount: number;
+  weakness: number;
+  answered: number;
+  correct: number;
+}
+
+export interface QuizAnswerResult {
+  questionId: number;
+  correct: boolean;
+  correctAnswer: number;
+  topicWeakness: number;
+}
+
+export interface PracticeProblem {
+  id: number;
+  title: string;
+  difficulty: 'Easy' | 'Medium' | 'Hard';
+  submissions?: number;
+  successRate?: number;
+  likes?: number;
+  path: string;
+  category: string;
+  isBlind75: boolean;
+  implemented?: boolean;
+}